@@ -0,0 +1,110 @@
+package com.example.movies_api.encoding;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.proto.MoviesProto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Encode and decode throughput of a full movie list in every response encoding, run with
+// mvn -Pbenchmark test-compile exec:exec. The bytes on the wire, plain and gzip-compressed, are printed at setup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+	@Param({"json", "smile", "cbor", "protobuf"})
+	private String format;
+
+	@Param({"1000"})
+	private int movies;
+
+	private ObjectMapper mapper;
+	private List<Movie> catalogue;
+	private byte[] encoded;
+
+	@Setup
+	public void setUp() throws IOException {
+		mapper = switch (format) {
+			case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+			case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+			default -> Jackson2ObjectMapperBuilder.json().build();
+		};
+		catalogue = catalogue(movies);
+		encoded = encode();
+		System.out.printf("%n%s: %d bytes, %d bytes gzip-compressed%n", format, encoded.length, gzip(encoded).length);
+	}
+
+	@Benchmark
+	public byte[] encode() throws IOException {
+		if (format.equals("protobuf")) {
+			// Same element-by-element encoding as ProtobufCatalogueConverter
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			CodedOutputStream output = CodedOutputStream.newInstance(out);
+			for (Movie movie : catalogue) {
+				output.writeMessage(MoviesProto.MovieList.MOVIES_FIELD_NUMBER, ProtobufMapper.toMovie(movie));
+			}
+			output.flush();
+			return out.toByteArray();
+		}
+		return mapper.writeValueAsBytes(catalogue);
+	}
+
+	@Benchmark
+	public Object decode() throws IOException {
+		if (format.equals("protobuf")) {
+			return MoviesProto.MovieList.parseFrom(encoded);
+		}
+		return mapper.readValue(encoded, Movie[].class);
+	}
+
+	// Movies shaped like the sample catalogue: three genres and five actors each, drawn from shared pools
+	private static List<Movie> catalogue(int size) {
+		List<Genre> genres = new ArrayList<>();
+		for (long id = 1; id <= 20; id++) {
+			genres.add(Genre.builder().genreId(id).genreName("Genre " + id).version(0L).build());
+		}
+		List<Actor> actors = new ArrayList<>();
+		for (long id = 1; id <= 2000; id++) {
+			actors.add(new Actor(id, "Actor Number " + id, "19" + (10 + id % 90) + "-0" + (1 + id % 9) + "-1" + id % 10, new HashSet<>(), 0L));
+		}
+		List<Movie> movies = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Set<Genre> movieGenres = new HashSet<>();
+			for (int g = 0; g < 3; g++) {
+				movieGenres.add(genres.get((i + g * 7) % genres.size()));
+			}
+			Set<Actor> movieActors = new HashSet<>();
+			for (int a = 0; a < 5; a++) {
+				movieActors.add(actors.get((i * 5 + a * 13) % actors.size()));
+			}
+			movies.add(Movie.builder().movieId((long) i + 1).movieTitle("The Movie Title Number " + (i + 1))
+					.releaseYear(1950 + i % 75).duration(90f + i % 60).genreSet(movieGenres).actorSet(movieActors)
+					.version(0L).build());
+		}
+		return movies;
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(data);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,59 @@
+package com.example.movies_api.sharding;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Movie insert throughput of the sharded store by number of shards, with concurrent writers each committing one
+// movie (with 2 genres and 4 actors) per transaction, run with
+// mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ShardedWriteBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(8)
+@Fork(1)
+public class ShardedWriteBenchmark {
+
+	@Param({"1", "2", "4", "8"})
+	private int shards;
+
+	private Path directory;
+	private MovieShard[] stores;
+	private final AtomicLong lastMovieId = new AtomicLong();
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("shards");
+		stores = new MovieShard[shards];
+		for (int i = 0; i < shards; i++) {
+			stores[i] = new MovieShard(i, directory.resolve("shard-" + i + ".db"), 1);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		for (MovieShard store : stores) {
+			store.close();
+		}
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public void insert() {
+		long movieId = lastMovieId.incrementAndGet();
+		stores[ShardedMovieService.shardOf(movieId, shards)].insert(new MovieShard.MovieRow(movieId, "Movie " + movieId,
+				2000 + (int) (movieId % 25), 120f, 0, Set.of(movieId % 30, 30 + movieId % 7),
+				Set.of(movieId % 500, 500 + movieId % 300, 800 + movieId % 200, 1000 + movieId % 100)));
+	}
+}
@@ -1,21 +1,19 @@
 package com.example.movies_api;
 
-import com.example.movies_api.entities.ConnectDB;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-import java.sql.Connection;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MoviesApiApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(MoviesApiApplication.class, args);
-		ConnectDB db = new ConnectDB();
-
-		Connection connection = db.getConnection();
-
-
+		SpringApplication application = new SpringApplication(MoviesApiApplication.class);
+		// Record the duration of every startup step for the startup report and /actuator/startup
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
 
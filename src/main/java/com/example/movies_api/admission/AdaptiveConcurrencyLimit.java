@@ -0,0 +1,47 @@
+package com.example.movies_api.admission;
+
+// Concurrency limit adjusted by additive increase / multiplicative decrease (AIMD): every request that finishes
+// within its latency target while the limit is in use raises the limit by 1/limit (about +1 per round trip),
+// every slow or overloaded request cuts it by BACKOFF_RATIO. The limit therefore settles at the concurrency the
+// database sustains without queueing.
+class AdaptiveConcurrencyLimit {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    // Admits a request if fewer than share * limit requests are in flight (always at least one)
+    synchronized boolean tryAcquire(double share) {
+        if (inFlight < Math.max(1, (int) (limit * share))) {
+            inFlight++;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void release(boolean overloaded) {
+        inFlight--;
+        if (overloaded) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else if (inFlight * 2 >= limit) {
+            // Only grow while the limit is actually being used, so idle periods do not inflate it
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    synchronized double getLimit() {
+        return limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
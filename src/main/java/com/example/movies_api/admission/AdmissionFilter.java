@@ -0,0 +1,157 @@
+package com.example.movies_api.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Admission control in front of every API endpoint. Each request is classified (EndpointClass) and must pass
+//  - the token bucket of its client and endpoint class, otherwise it is answered 429 Too Many Requests, and
+//  - the adaptive concurrency limit, of which each class may only use its configured share, otherwise 503.
+// Both rejections carry Retry-After. Metrics: movies.admission.requests{class,outcome},
+// movies.admission.concurrency.limit and movies.admission.in.flight.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionFilter implements Filter {
+
+    // Above this many tracked client buckets, full and idle buckets are dropped
+    private static final int MAX_TRACKED_BUCKETS = 10_000;
+    // A bucket whose client sent nothing for this long is dropped even if it is not full yet
+    private static final long MAX_IDLE_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // Buckets are swept at most this often, so many active clients do not make every request scan them all
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AdmissionProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Map<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+
+    private record BucketKey(String client, EndpointClass endpointClass) {
+    }
+
+    public AdmissionFilter(AdmissionProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(properties.initialLimit(), properties.minLimit(), properties.maxLimit());
+        Gauge.builder("movies.admission.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+        Gauge.builder("movies.admission.in.flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        EndpointClass endpointClass = properties.enabled() ? EndpointClass.of(request) : null;
+        if (endpointClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AdmissionProperties.ClassLimits limits = properties.limitsOf(endpointClass);
+
+        long waitNanos = limits == null ? 0 : takeToken(request.getRemoteAddr(), endpointClass, limits);
+        if (waitNanos > 0) {
+            count(endpointClass, "rate_limited");
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, TokenBucket.retryAfterSeconds(waitNanos),
+                    "Too many " + endpointClass.name().toLowerCase() + " requests, please retry later");
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire(limits == null ? 1.0 : limits.limitShare())) {
+            count(endpointClass, "shed");
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "The service is busy, please retry later");
+            return;
+        }
+        count(endpointClass, "admitted");
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                boolean slow = limits != null && System.nanoTime() - start > limits.latencyTarget().toNanos();
+                concurrencyLimit.release(slow || response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value());
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // The permit is held until the asynchronous endpoint has produced its response
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    // Returns 0 if the client may proceed, otherwise the nanoseconds until its bucket has a token again
+    private long takeToken(String client, EndpointClass endpointClass, AdmissionProperties.ClassLimits limits) {
+        long now = System.nanoTime();
+        long sweepAt = nextSweep.get();
+        if (buckets.size() > MAX_TRACKED_BUCKETS && now - sweepAt >= 0
+                && nextSweep.compareAndSet(sweepAt, now + SWEEP_INTERVAL_NANOS)) {
+            buckets.values().removeIf(bucket -> bucket.isIdle(now, MAX_IDLE_NANOS));
+        }
+        return buckets.computeIfAbsent(new BucketKey(client, endpointClass),
+                key -> new TokenBucket(limits.requestsPerSecond(), limits.burst(), now)).tryAcquire(now);
+    }
+
+    private void count(EndpointClass endpointClass, String outcome) {
+        meterRegistry.counter("movies.admission.requests", "class", endpointClass.name().toLowerCase(), "outcome", outcome)
+                .increment();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message) throws IOException {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("message", message);
+        errorResponse.put("timestamp", String.valueOf(Instant.now()));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private record ReleasingAsyncListener(Runnable release) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // The listener has to be registered again for the next dispatch; the permit stays held
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.movies_api.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Settings of the admission control filter (movies.admission.* in application.properties)
+@ConfigurationProperties(prefix = "movies.admission")
+public record AdmissionProperties(
+        @DefaultValue("true") boolean enabled,
+        // Concurrency limit shared by all endpoint classes: starting value and bounds of the adaptive limit
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("100") int maxLimit,
+        // Limits of each endpoint class; classes without an entry are not rate limited and may use the whole limit
+        Map<EndpointClass, ClassLimits> classes) {
+
+    public AdmissionProperties {
+        classes = classes == null ? new EnumMap<>(EndpointClass.class) : new EnumMap<>(classes);
+    }
+
+    // requestsPerSecond and burst configure the token bucket of each client, limitShare is the fraction of the
+    // concurrency limit the class may occupy, and requests slower than latencyTarget make the limit shrink
+    public record ClassLimits(double requestsPerSecond, int burst, @DefaultValue("1.0") double limitShare,
+                              @DefaultValue("500ms") Duration latencyTarget) {
+    }
+
+    public ClassLimits limitsOf(EndpointClass endpointClass) {
+        return classes.get(endpointClass);
+    }
+}
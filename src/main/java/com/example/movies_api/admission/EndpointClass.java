@@ -0,0 +1,53 @@
+package com.example.movies_api.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.regex.Pattern;
+
+// Endpoint classes that admission control limits separately, from the cheapest to the most expensive.
+// Cheaper classes may use a larger share of the concurrency limit, so id lookups keep being served
+// while full scans are already shed.
+public enum EndpointClass {
+    // Single entity by ID
+    LOOKUP,
+    // Movies of a genre, year or actor, the filter endpoints and multi-gets
+    LIST,
+    // Partial-name searches (LIKE '%...%' over the whole table)
+    SEARCH,
+    // Full lists, pages of an entity type and exports
+    SCAN,
+    // Creates, updates and deletes
+    WRITE,
+    // Deletes with force=true, which also rewrite every association of the entity
+    FORCE_DELETE;
+
+    private static final Pattern SCAN_PATH = Pattern.compile("/api/(movie|actor|genre)/?|/api/movie/page|/api/export/.*");
+    private static final Pattern LOOKUP_PATH = Pattern.compile("/api/(movie|actor|genre)/\\d+");
+
+    // Classifies a request, or returns null for requests that are not admission controlled
+    // (actuator endpoints and the long-lived event polls and streams)
+    public static EndpointClass of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith("/api/") || path.startsWith("/api/events")) {
+            return null;
+        }
+        // Asynchronous and sharded variants cost the same class as the plain endpoints
+        path = path.replace("/async/", "/").replace("/api/sharded/", "/api/");
+        if ("DELETE".equals(request.getMethod())) {
+            return Boolean.parseBoolean(request.getParameter("force")) ? FORCE_DELETE : WRITE;
+        }
+        if (!"GET".equals(request.getMethod())) {
+            return WRITE;
+        }
+        if (SCAN_PATH.matcher(path).matches()) {
+            return SCAN;
+        }
+        if (path.contains("/search/")) {
+            return SEARCH;
+        }
+        if (LOOKUP_PATH.matcher(path).matches()) {
+            return LOOKUP;
+        }
+        return LIST;
+    }
+}
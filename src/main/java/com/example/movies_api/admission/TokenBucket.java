@@ -0,0 +1,48 @@
+package com.example.movies_api.admission;
+
+import java.util.concurrent.TimeUnit;
+
+// Token bucket holding up to capacity tokens and refilling at a fixed rate; each admitted request takes one token
+class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+    private long usedAt;
+
+    TokenBucket(double requestsPerSecond, int burst, long now) {
+        this.capacity = Math.max(burst, 1);
+        this.tokensPerNano = requestsPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.refilledAt = now;
+        this.usedAt = now;
+    }
+
+    // Takes a token and returns 0, or returns the nanoseconds until the next token becomes available
+    synchronized long tryAcquire(long now) {
+        refill(now);
+        usedAt = now;
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    // True if the bucket can be dropped: it is full, so it carries no state beyond a new one, or its client
+    // has not sent a request for maxIdleNanos
+    synchronized boolean isIdle(long now, long maxIdleNanos) {
+        refill(now);
+        return tokens >= capacity || now - usedAt >= maxIdleNanos;
+    }
+
+    // Value of the Retry-After header for a wait returned by tryAcquire: whole seconds, rounded up, at least 1
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.movies_api.async;
+
+import com.example.movies_api.profiling.ProfilingContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+
+// Bounded executor for database work of the asynchronous controller endpoints.
+// It has one thread per pooled JDBC connection and a short queue, so slow database calls wait here instead of
+// holding Tomcat threads. When the queue is full the task is rejected and the client gets 503 with Retry-After.
+@Component
+public class DatabaseExecutor implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final long timeoutMillis;
+
+    public DatabaseExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                            @Value("${movies.async.queue-capacity:50}") int queueCapacity,
+                            @Value("${movies.async.timeout:10s}") Duration timeout,
+                            MeterRegistry meterRegistry) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("db-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        this.timeoutMillis = timeout.toMillis();
+        Gauge.builder("movies.db.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("movies.db.executor.queued", executor, e -> e.getThreadPoolExecutor().getQueue().size()).register(meterRegistry);
+    }
+
+    // Wraps database work so Spring MVC runs it on this executor and releases the request thread meanwhile.
+    // The work keeps the endpoint of the request in its profiling events.
+    public <T> WebAsyncTask<T> submit(Callable<T> work) {
+        return new WebAsyncTask<>(timeoutMillis, executor, ProfilingContext.propagate(work));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.movies_api.cache;
+
+import com.example.movies_api.entities.EntityType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps in-memory change stamps for every entity and entity collection so controllers can answer
+// conditional GET requests (ETag / Last-Modified) without touching the database.
+// Stamps come from one global sequence, so the highest stamp of everything a response depends on
+// changes whenever any part of it changes.
+@Component
+public class ChangeTracker {
+
+    // Identifies this process (and the restored database), so validators handed out before a restart
+    // or a restore never match again
+    private volatile String epoch = Long.toHexString(System.currentTimeMillis());
+    private final Change initial = new Change(0, System.currentTimeMillis());
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<EntityType, Change> collectionChanges = new ConcurrentHashMap<>();
+    private final Map<EntityType, Map<Long, Change>> entityChanges = new EnumMap<>(EntityType.class);
+
+    public ChangeTracker() {
+        for (EntityType type : EntityType.values()) {
+            collectionChanges.put(type, initial);
+            entityChanges.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    private record Change(long stamp, long timestamp) {
+    }
+
+    // The values a controller passes to WebRequest.checkNotModified
+    public record Validator(String eTag, long lastModified) {
+    }
+
+    // Records that an entity was created, updated or deleted. Inside a transaction the change is
+    // recorded after commit, so a validator is never handed out for data that is not visible yet.
+    public void recordChange(EntityType type, Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stamp(type, id);
+                }
+            });
+        } else {
+            stamp(type, id);
+        }
+    }
+
+    // Validator for a list response built from the given entity collections
+    public Validator forCollections(EntityType... types) {
+        Change latest = initial;
+        for (EntityType type : types) {
+            latest = later(latest, collectionChanges.get(type));
+        }
+        return toValidator(latest);
+    }
+
+    // Validator for a single entity whose representation also embeds entities of the given dependency types
+    public Validator forEntity(EntityType type, Long id, EntityType... dependencies) {
+        Change latest = entityChanges.get(type).getOrDefault(id, initial);
+        for (EntityType dependency : dependencies) {
+            latest = later(latest, collectionChanges.get(dependency));
+        }
+        return toValidator(latest);
+    }
+
+    // Invalidates every validator handed out so far, used after the whole database was replaced
+    public void reset() {
+        epoch = Long.toHexString(System.currentTimeMillis()) + "r" + sequence.incrementAndGet();
+    }
+
+    // Stamp of the latest recorded change; it grows whenever anything in the catalogue changes
+    public long currentStamp() {
+        return sequence.get();
+    }
+
+    private synchronized void stamp(EntityType type, Long id) {
+        Change change = new Change(sequence.incrementAndGet(), System.currentTimeMillis());
+        if (id != null) {
+            entityChanges.get(type).put(id, change);
+        }
+        collectionChanges.put(type, change);
+    }
+
+    private static Change later(Change a, Change b) {
+        return b.stamp() > a.stamp() ? b : a;
+    }
+
+    private Validator toValidator(Change change) {
+        return new Validator("\"" + epoch + "-" + change.stamp() + "\"", change.timestamp());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.movies_api.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToLongFunction;
+
+// Hit ratios of the Hibernate second-level, natural-id and query caches. The raw hit, miss and put
+// counters are published by Spring Boot as hibernate.* metrics.
+@Component
+public class HibernateCacheMetrics {
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        register(meterRegistry, statistics, "second-level",
+                Statistics::getSecondLevelCacheHitCount, Statistics::getSecondLevelCacheMissCount);
+        register(meterRegistry, statistics, "natural-id",
+                Statistics::getNaturalIdCacheHitCount, Statistics::getNaturalIdCacheMissCount);
+        register(meterRegistry, statistics, "query",
+                Statistics::getQueryCacheHitCount, Statistics::getQueryCacheMissCount);
+    }
+
+    private static void register(MeterRegistry meterRegistry, Statistics statistics, String cache,
+                                 ToLongFunction<Statistics> hits, ToLongFunction<Statistics> misses) {
+        Gauge.builder("movies.hibernate.cache.hit.ratio", statistics, stats -> {
+                    double total = hits.applyAsLong(stats) + misses.applyAsLong(stats);
+                    return total == 0 ? 0 : hits.applyAsLong(stats) / total;
+                })
+                .tag("cache", cache)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.movies_api.cache;
+
+import com.example.movies_api.encoding.EncodingConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Caches the serialized bytes of large list responses, together with a gzip-compressed copy, so repeated
+// requests are answered from bytes without calling the service or the encoder again.
+// Each encoding negotiated through Accept (JSON, Smile, CBOR or Protobuf, see EncodingConfig) is cached separately.
+// Entries are tagged with the ChangeTracker ETag they were built for; any write to the entities a response
+// depends on changes that ETag and the entry is rebuilt on the next request.
+@Component
+public class ResponseCache {
+
+    // Responses smaller than this are not worth compressing
+    private static final int MIN_COMPRESS_SIZE = 1024;
+
+    private final HttpMessageConverters messageConverters;
+    private final SingleFlight singleFlight;
+    private final Map<String, CachedResponse> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bytesSaved;
+
+    private record CachedResponse(String eTag, HttpHeaders headers, byte[] body, byte[] gzip) {
+    }
+
+    // Collects what a message converter writes
+    private static class BufferedOutputMessage implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    public ResponseCache(HttpMessageConverters messageConverters, SingleFlight singleFlight, MeterRegistry meterRegistry,
+                         @Value("${movies.response-cache.max-entries:256}") int maxEntries) {
+        this.messageConverters = messageConverters;
+        this.singleFlight = singleFlight;
+        // Access-ordered map that evicts the least recently used response once full
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        this.hits = meterRegistry.counter("movies.response.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("movies.response.cache.requests", "result", "miss");
+        this.bytesSaved = meterRegistry.counter("movies.response.cache.bytes.saved");
+        Gauge.builder("movies.response.cache.hit.ratio", this, ResponseCache::hitRatio).register(meterRegistry);
+        Gauge.builder("movies.response.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    // Returns the cached bytes for the key and negotiated encoding if they were built for the current validator,
+    // otherwise serializes the supplied body and caches it
+    public ResponseEntity<byte[]> respond(String key, ChangeTracker.Validator validator, WebRequest request,
+                                          Supplier<?> body) {
+        MediaType format = negotiate(request);
+        String formatKey = key + "@" + format;
+        CachedResponse cached = entries.get(formatKey);
+        if (cached != null && cached.eTag().equals(validator.eTag())) {
+            hits.increment();
+        } else {
+            misses.increment();
+            // Concurrent misses for the same response share one query and serialization
+            cached = singleFlight.execute("responseCache", formatKey + validator.eTag(), () -> {
+                CachedResponse response = serialize(validator.eTag(), format, body.get());
+                entries.put(formatKey, response);
+                return response;
+            });
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .headers(cached.headers())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzip() != null && acceptsGzip(request)) {
+            bytesSaved.increment(cached.body().length - cached.gzip().length);
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzip());
+        }
+        return response.body(cached.body());
+    }
+
+    // Share of requests answered from the cache
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    // Encodes the body with the first message converter that can write it in the given format
+    @SuppressWarnings("unchecked")
+    private CachedResponse serialize(String eTag, MediaType format, Object body) {
+        for (HttpMessageConverter<?> converter : messageConverters) {
+            if (converter.canWrite(body.getClass(), format)) {
+                BufferedOutputMessage message = new BufferedOutputMessage();
+                try {
+                    ((HttpMessageConverter<Object>) converter).write(body, format, message);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not serialize response", e);
+                }
+                // The cached body may be sent compressed, so its length is set per response
+                message.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                byte[] bytes = message.body.toByteArray();
+                byte[] gzip = bytes.length >= MIN_COMPRESS_SIZE ? gzip(bytes) : null;
+                // Keep the compressed copy only if it is actually smaller
+                return new CachedResponse(eTag, HttpHeaders.readOnlyHttpHeaders(message.getHeaders()), bytes,
+                        gzip != null && gzip.length < bytes.length ? gzip : null);
+            }
+        }
+        throw new IllegalStateException("No converter writes " + body.getClass().getSimpleName() + " as " + format);
+    }
+
+    // The most preferred encoding the client accepts, JSON if it accepts none of them
+    private static MediaType negotiate(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            for (MediaType format : EncodingConfig.RESPONSE_FORMATS) {
+                if (mediaType.getQualityValue() > 0 && mediaType.includes(format)) {
+                    return format;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.movies_api.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Merges concurrent identical reads into one execution: the first caller of an operation and key runs it,
+// callers arriving while it is in flight wait for and share its result (or its exception).
+// The key includes the ChangeTracker stamp, so a read that starts after a write has committed never joins
+// a flight that started before it and cannot be handed data older than that write.
+@Component
+public class SingleFlight {
+
+    private final ChangeTracker changeTracker;
+    private final MeterRegistry meterRegistry;
+    private final Map<FlightKey, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong sharedResults = new AtomicLong();
+
+    private record FlightKey(String operation, Object key, long stamp) {
+    }
+
+    public SingleFlight(ChangeTracker changeTracker, MeterRegistry meterRegistry) {
+        this.changeTracker = changeTracker;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("movies.single.flight.in.flight", flights, Map::size).register(meterRegistry);
+        Gauge.builder("movies.single.flight.coalescing.ratio", this, SingleFlight::coalescingRatio).register(meterRegistry);
+    }
+
+    // Runs the call unless an identical one is already in flight, in which case its result is returned
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> call) {
+        FlightKey flightKey = new FlightKey(operation, key, changeTracker.currentStamp());
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = flights.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            sharedResults.incrementAndGet();
+            meterRegistry.counter("movies.single.flight.calls", "operation", operation, "result", "shared").increment();
+            return (T) await(existing);
+        }
+        executions.incrementAndGet();
+        meterRegistry.counter("movies.single.flight.calls", "operation", operation, "result", "executed").increment();
+        try {
+            T result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(flightKey, flight);
+        }
+    }
+
+    // Share of calls answered with the result of another caller's execution
+    public double coalescingRatio() {
+        double total = executions.get() + sharedResults.get();
+        return total == 0 ? 0 : sharedResults.get() / total;
+    }
+
+    // Waits for the flight and rethrows the leader's exception unchanged, so followers get the same error response
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
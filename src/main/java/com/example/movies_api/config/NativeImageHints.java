@@ -0,0 +1,65 @@
+package com.example.movies_api.config;
+
+import com.example.movies_api.dto.MovieDTO;
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.CatalogueEvent;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.export.CatalogueExporter;
+import com.example.movies_api.replication.ReplicationManifest;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+// Reflection, resource and JNI hints for the GraalVM native image (mvn -Pnative native:compile).
+// Spring AOT already covers the JPA entities and controller signatures; these hints cover what it cannot see:
+// types serialized by the response cache, event stream, catalogue export and replication manifest, classes and files
+// configured by name in application.properties, and the sqlite-jdbc native library with its JNI callbacks.
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeImageHints.Registrar.class)
+@RegisterReflectionForBinding({Movie.class, Actor.class, Genre.class, CatalogueEvent.class, MovieDTO.class,
+        CatalogueExporter.ExportedMovie.class, ReplicationManifest.class})
+public class NativeImageHints {
+
+    // Classes the SQLite native library calls back into or reads fields of through JNI
+    private static final String[] SQLITE_JNI_TYPES = {
+            "org.sqlite.core.NativeDB",
+            "org.sqlite.core.DB",
+            "org.sqlite.core.DB$ProgressObserver",
+            "org.sqlite.Function",
+            "org.sqlite.Function$Aggregate",
+            "org.sqlite.Function$Window",
+            "org.sqlite.Collation",
+            "org.sqlite.BusyHandler",
+            "org.sqlite.ProgressHandler",
+            "org.sqlite.SQLiteUpdateListener",
+            "org.sqlite.SQLiteCommitListener"
+    };
+
+    static class Registrar implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Instantiated by name from spring.datasource.driver-class-name and spring.jpa.database-platform
+            hints.reflection().registerType(TypeReference.of("org.sqlite.JDBC"), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.reflection().registerType(TypeReference.of("org.hibernate.community.dialect.SQLiteDialect"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            // Loaded from the classpath through hibernate.javax.cache.uri; startup fails without it as
+            // missing_cache_strategy=fail. Ehcache validates it against the schemas bundled in its jar.
+            hints.resources().registerPattern("ehcache.xml");
+            hints.resources().registerPattern("ehcache-*.xsd");
+
+            // sqlite-jdbc extracts its native library from the classpath and reads its version from properties files
+            hints.resources().registerPattern("org/sqlite/native/*/*/libsqlitejdbc.*");
+            hints.resources().registerPattern("sqlite-jdbc.properties");
+            hints.resources().registerPattern("META-INF/maven/org.xerial/sqlite-jdbc/pom.properties");
+            for (String type : SQLITE_JNI_TYPES) {
+                hints.jni().registerType(TypeReference.of(type), MemberCategory.values());
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.movies_api.config;
+
+import jakarta.servlet.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+// Logs how long startup took: the slowest recorded startup steps once the application is ready,
+// and the time to the first served request compared with the configured target
+@Component
+public class StartupReport implements Filter {
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+    // Number of slowest startup steps included in the report
+    private static final int REPORTED_STEPS = 10;
+
+    private final Duration target;
+    private final AtomicBoolean firstRequestServed = new AtomicBoolean();
+
+    public StartupReport(@Value("${movies.startup.target-time-to-first-request:5s}") Duration target) {
+        this.target = target;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportStartupSteps(ApplicationReadyEvent event) {
+        log.info("Application ready {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+        if (event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup) {
+            startup.getBufferedTimeline().getEvents().stream()
+                    .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                    .limit(REPORTED_STEPS)
+                    .forEach(step -> log.info("Startup step {} ms: {} {}", step.getDuration().toMillis(),
+                            step.getStartupStep().getName(), describe(step.getStartupStep().getTags())));
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        chain.doFilter(request, response);
+        if (!firstRequestServed.get() && firstRequestServed.compareAndSet(false, true)) {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            if (uptime > target.toMillis()) {
+                log.warn("First request served {} ms after JVM start, target is {} ms, resident memory {}", uptime, target.toMillis(), residentMemory());
+            } else {
+                log.info("First request served {} ms after JVM start, target is {} ms, resident memory {}", uptime, target.toMillis(), residentMemory());
+            }
+        }
+    }
+
+    // Resident set size of the process as reported by Linux, used to compare the JVM and native builds
+    private static String residentMemory() {
+        try {
+            return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> line.substring("VmRSS:".length()).trim())
+                    .findFirst()
+                    .orElse("unknown");
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    private static String describe(StartupStep.Tags tags) {
+        return StreamSupport.stream(tags.spliterator(), false)
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.movies_api.controller;
 
+import com.example.movies_api.async.DatabaseExecutor;
+import com.example.movies_api.cache.ChangeTracker;
+import com.example.movies_api.cache.ResponseCache;
+import com.example.movies_api.dto.BatchResult;
 import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.EntityType;
 import com.example.movies_api.entities.Movie;
 import com.example.movies_api.service.ActorService;
 import jakarta.validation.Valid;
@@ -10,6 +15,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.util.List;
 import java.util.Set;
@@ -19,10 +26,20 @@ import java.util.Set;
 public class ActorController {
     @Autowired
     private ActorService actorService;
+    @Autowired
+    private ChangeTracker changeTracker;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private DatabaseExecutor databaseExecutor;
 
     @GetMapping
-    public List<Actor> getAllActors() {
-        return actorService.getAllActors();
+    public ResponseEntity<byte[]> getAllActors(WebRequest request) {
+        ChangeTracker.Validator validator = changeTracker.forCollections(EntityType.ACTOR);
+        if (request.checkNotModified(validator.eTag(), validator.lastModified())) {
+            return null;
+        }
+        return responseCache.respond("actors", validator, request, actorService::getAllActors);
     }
 
     @PostMapping("/add-actor")
@@ -31,10 +48,26 @@ public class ActorController {
     }
 
     @GetMapping("{actorId}")
-    public ResponseEntity<Actor> getActorById(@PathVariable("actorId") Long actorId) {
+    public ResponseEntity<Actor> getActorById(@PathVariable("actorId") Long actorId, WebRequest request) {
+        ChangeTracker.Validator validator = changeTracker.forEntity(EntityType.ACTOR, actorId);
+        if (request.checkNotModified(validator.eTag(), validator.lastModified())) {
+            return null;
+        }
         return new ResponseEntity<Actor>(actorService.findActorById(actorId), HttpStatus.OK);
     }
 
+    // Multi-get: the actors with the given IDs (?ids=3,1,2) in the requested order, plus the IDs that do not exist
+    @GetMapping("/batch")
+    public ResponseEntity<BatchResult<Actor>> getActorsByIds(@RequestParam("ids") List<Long> actorIds) throws BadRequestException {
+        return ResponseEntity.ok(actorService.findActorsByIds(actorIds));
+    }
+
+    // The most read actors, counting lookups by ID and movie filters naming them, most read first
+    @GetMapping("/trending")
+    public ResponseEntity<List<Actor>> getTrendingActors(@RequestParam(defaultValue = "10") int limit) throws BadRequestException {
+        return ResponseEntity.ok(actorService.findTrendingActors(limit));
+    }
+
     @GetMapping("/{actorId}/movies")
     public ResponseEntity<Set<Movie>> getMoviesByActor(@PathVariable Long actorId) {
         return new ResponseEntity<Set<Movie>>(actorService.getMoviesByActorId(actorId), HttpStatus.OK);
@@ -61,4 +94,46 @@ public class ActorController {
     public ResponseEntity<Set<Actor>> findActors(@PathVariable String name) {
         return new ResponseEntity<>(actorService.findActorsByPartialName(name), HttpStatus.OK);
     }
+
+    // Asynchronous variants: the database work runs on the bounded DatabaseExecutor instead of the request thread
+
+    @PostMapping("/async/add-actor")
+    public WebAsyncTask<ResponseEntity<Actor>> addActorAsync(@Valid @RequestBody Actor actor) {
+        return databaseExecutor.submit(() -> new ResponseEntity<>(actorService.save(actor), HttpStatus.CREATED));
+    }
+
+    @GetMapping("/async/{actorId}")
+    public WebAsyncTask<Actor> getActorByIdAsync(@PathVariable("actorId") Long actorId) {
+        return databaseExecutor.submit(() -> actorService.findActorById(actorId));
+    }
+
+    @GetMapping("/async/{actorId}/movies")
+    public WebAsyncTask<Set<Movie>> getMoviesByActorAsync(@PathVariable Long actorId) {
+        return databaseExecutor.submit(() -> actorService.getMoviesByActorId(actorId));
+    }
+
+    @GetMapping("/async/search/{name}")
+    public WebAsyncTask<Set<Actor>> findActorsAsync(@PathVariable String name) {
+        return databaseExecutor.submit(() -> actorService.findActorsByPartialName(name));
+    }
+
+    @PatchMapping("/async/update/{actorId}")
+    public WebAsyncTask<Actor> updateActorAsync(@PathVariable Long actorId, @RequestBody Actor actor) {
+        return databaseExecutor.submit(() -> {
+            actorService.updateActor(actorId, actor.getActorName(), actor.getBirthDate(), actor.getMovieSet());
+            return actor;
+        });
+    }
+
+    @DeleteMapping("/async/{actorId}")
+    public WebAsyncTask<ResponseEntity<?>> deleteActorAsync(@PathVariable Long actorId, @RequestParam(name = "force", defaultValue = "false") boolean force) {
+        return databaseExecutor.submit(() -> {
+            try {
+                actorService.deleteActor(actorId, force);
+                return ResponseEntity.noContent().build();
+            } catch (BadRequestException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            }
+        });
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.movies_api.controller;
+
+import com.example.movies_api.service.BackupService;
+import org.apache.coyote.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+public class BackupController {
+    @Autowired
+    private BackupService backupService;
+
+    @PostMapping("/backup")
+    public ResponseEntity<BackupService.BackupResult> backup() throws BadRequestException {
+        return new ResponseEntity<>(backupService.backup(), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/backups")
+    public ResponseEntity<List<BackupService.Snapshot>> listBackups() {
+        return ResponseEntity.ok(backupService.listSnapshots());
+    }
+
+    @PostMapping("/restore/{name}")
+    public ResponseEntity<BackupService.RestoreResult> restore(@PathVariable("name") String name) throws BadRequestException {
+        return ResponseEntity.ok(backupService.restore(name));
+    }
+}
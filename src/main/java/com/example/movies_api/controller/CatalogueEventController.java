@@ -0,0 +1,43 @@
+package com.example.movies_api.controller;
+
+import com.example.movies_api.entities.CatalogueEvent;
+import com.example.movies_api.service.CatalogueEventService;
+import org.apache.coyote.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/events")
+public class CatalogueEventController {
+    // Longest time a long poll may wait for new events
+    private static final int MAX_WAIT_SECONDS = 30;
+
+    @Autowired
+    private CatalogueEventService catalogueEventService;
+
+    @GetMapping
+    public ResponseEntity<List<CatalogueEvent>> getEvents(@RequestParam(defaultValue = "0") long after,
+                                                          @RequestParam(defaultValue = "100") int limit,
+                                                          @RequestParam(defaultValue = "0") int waitSeconds) throws BadRequestException, InterruptedException {
+        if (limit <= 0 || limit > CatalogueEventService.MAX_BATCH_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + CatalogueEventService.MAX_BATCH_SIZE);
+        }
+        if (waitSeconds < 0 || waitSeconds > MAX_WAIT_SECONDS) {
+            throw new BadRequestException("Wait must be between 0 and " + MAX_WAIT_SECONDS + " seconds");
+        }
+        return ResponseEntity.ok(catalogueEventService.awaitEventsAfter(after, limit, waitSeconds * 1000L));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam(required = false) Long after,
+                                   @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        // A reconnecting EventSource sends the ID of the last event it received
+        long offset = lastEventId != null ? lastEventId : after != null ? after : 0;
+        return catalogueEventService.subscribe(offset);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.movies_api.controller;
+
+import com.example.movies_api.export.CatalogueExporter;
+import com.example.movies_api.export.ExportFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.coyote.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+    @Autowired
+    private CatalogueExporter catalogueExporter;
+
+    // Size of the buffer between the exporter and the (possibly compressed) response stream
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Streams all movies with their genres and actors as NDJSON or CSV, ordered by movie ID.
+    // Clients sending Accept-Encoding: gzip get a compressed stream; an interrupted export is resumed
+    // with afterMovieId set to the last movieId received.
+    @GetMapping("/movies")
+    public void exportMovies(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                             @RequestParam(value = "afterMovieId", defaultValue = "0") long afterMovieId,
+                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                             HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        if (afterMovieId < 0) {
+            throw new BadRequestException("afterMovieId must not be negative");
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"movies." + exportFormat.getFileExtension() + "\"");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        OutputStream body = gzip ? new GZIPOutputStream(response.getOutputStream(), BUFFER_SIZE) : response.getOutputStream();
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            catalogueExporter.export(exportFormat, afterMovieId, out);
+        }
+    }
+}
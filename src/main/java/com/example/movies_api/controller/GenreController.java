@@ -1,8 +1,12 @@
 package com.example.movies_api.controller;
 
 
+import com.example.movies_api.async.DatabaseExecutor;
+import com.example.movies_api.cache.ChangeTracker;
+import com.example.movies_api.cache.ResponseCache;
+import com.example.movies_api.dto.BatchResult;
+import com.example.movies_api.entities.EntityType;
 import com.example.movies_api.entities.Genre;
-import com.example.movies_api.entities.Movie;
 import com.example.movies_api.service.GenreService;
 import com.example.movies_api.service.MovieService;
 import jakarta.validation.Valid;
@@ -12,9 +16,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.util.List;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/api/genre")
@@ -23,11 +28,21 @@ public class GenreController {
     private GenreService genreService;
     @Autowired
     private MovieService movieService;
+    @Autowired
+    private ChangeTracker changeTracker;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private DatabaseExecutor databaseExecutor;
 
 
     @GetMapping
-    public ResponseEntity<List<Genre>> getAllGenres() {
-        return new ResponseEntity<List<Genre>>(genreService.getAllGenres(), HttpStatus.OK);
+    public ResponseEntity<byte[]> getAllGenres(WebRequest request) {
+        ChangeTracker.Validator validator = changeTracker.forCollections(EntityType.GENRE);
+        if (request.checkNotModified(validator.eTag(), validator.lastModified())) {
+            return null;
+        }
+        return responseCache.respond("genres", validator, request, genreService::getAllGenres);
     }
 
     @PostMapping("/add-genre")
@@ -37,14 +52,35 @@ public class GenreController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Genre> findGenreById(@PathVariable("id") Long id) {
+    public ResponseEntity<Genre> findGenreById(@PathVariable("id") Long id, WebRequest request) {
+        ChangeTracker.Validator validator = changeTracker.forEntity(EntityType.GENRE, id);
+        if (request.checkNotModified(validator.eTag(), validator.lastModified())) {
+            return null;
+        }
         Genre genre = genreService.findGenreById(id);
         return ResponseEntity.ok(genre);
     }
 
+    // Multi-get: the genres with the given IDs (?ids=3,1,2) in the requested order, plus the IDs that do not exist
+    @GetMapping("/batch")
+    public ResponseEntity<BatchResult<Genre>> getGenresByIds(@RequestParam("ids") List<Long> genreIds) throws BadRequestException {
+        return ResponseEntity.ok(genreService.findGenresByIds(genreIds));
+    }
+
+    // The most read genres, counting lookups by ID and movie filters naming them, most read first
+    @GetMapping("/trending")
+    public ResponseEntity<List<Genre>> getTrendingGenres(@RequestParam(defaultValue = "10") int limit) throws BadRequestException {
+        return ResponseEntity.ok(genreService.findTrendingGenres(limit));
+    }
+
     @GetMapping("/{genreName}/movies")
-    public Set<Movie> getMoviesByGenre(@PathVariable String genreName) {
-        return genreService.getMoviesByGenre(genreName);
+    public ResponseEntity<byte[]> getMoviesByGenre(@PathVariable String genreName, WebRequest request) {
+        ChangeTracker.Validator validator = changeTracker.forCollections(EntityType.MOVIE, EntityType.GENRE, EntityType.ACTOR);
+        if (request.checkNotModified(validator.eTag(), validator.lastModified())) {
+            return null;
+        }
+        return responseCache.respond("genre-movies:" + genreName.toLowerCase(), validator, request,
+                () -> genreService.getMoviesByGenre(genreName));
     }
 
     @PatchMapping("/update/{genreId}")
@@ -64,4 +100,36 @@ public class GenreController {
         }
     }
 
+    // Asynchronous variants: the database work runs on the bounded DatabaseExecutor instead of the request thread
+
+    @PostMapping("/async/add-genre")
+    public WebAsyncTask<ResponseEntity<Genre>> addGenreAsync(@Valid @RequestBody Genre genre) {
+        return databaseExecutor.submit(() -> new ResponseEntity<>(genreService.save(genre), HttpStatus.CREATED));
+    }
+
+    @GetMapping("/async/{id}")
+    public WebAsyncTask<Genre> findGenreByIdAsync(@PathVariable("id") Long id) {
+        return databaseExecutor.submit(() -> genreService.findGenreById(id));
+    }
+
+    @PatchMapping("/async/update/{genreId}")
+    public WebAsyncTask<Genre> updateGenreAsync(@PathVariable("genreId") Long genreId, @RequestBody Genre genre) {
+        return databaseExecutor.submit(() -> {
+            genreService.updateGenre(genreId, genre.getGenreName());
+            return genre;
+        });
+    }
+
+    @DeleteMapping("/async/{genreId}")
+    public WebAsyncTask<ResponseEntity<?>> deleteGenreAsync(@PathVariable("genreId") Long genreId, @RequestParam(name = "force", defaultValue = "false") boolean force) {
+        return databaseExecutor.submit(() -> {
+            try {
+                genreService.deleteGenre(genreId, force);
+                return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Genre is deleted");
+            } catch (BadRequestException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            }
+        });
+    }
+
 }
@@ -1,7 +1,13 @@
 package com.example.movies_api.controller;
 
+import com.example.movies_api.async.DatabaseExecutor;
+import com.example.movies_api.cache.ChangeTracker;
+import com.example.movies_api.cache.ResponseCache;
+import com.example.movies_api.dto.BatchResult;
 import com.example.movies_api.dto.MovieDTO;
+import com.example.movies_api.dto.MovieFieldSet;
 import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.EntityType;
 import com.example.movies_api.entities.Movie;
 import com.example.movies_api.service.MovieService;
 import jakarta.validation.Valid;
@@ -13,7 +19,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -23,6 +32,12 @@ public class MovieController {
 
     @Autowired
     private MovieService movieService;
+    @Autowired
+    private ChangeTracker changeTracker;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private DatabaseExecutor databaseExecutor;
 
 
     @PostMapping("/add-movie")
@@ -30,17 +45,50 @@ public class MovieController {
         return new ResponseEntity<Movie>(movieService.addMovie(movie), HttpStatus.CREATED);
     }
 
+    // fields= and include= limit the response to the given movie properties and associations (see MovieFieldSet)
     @GetMapping
-    public List<Movie> getAllMovies() {
-        return movieService.getAllMovies();
+    public ResponseEntity<byte[]> getAllMovies(@RequestParam(required = false) String fields,
+                                               @RequestParam(required = false) String include,
+                                               WebRequest request) throws BadRequestException {
+        if (MovieFieldSet.isRequested(fields, include)) {
+            MovieFieldSet fieldSet = MovieFieldSet.parse(fields, include);
+            // A sparse list only depends on the associations it embeds
+            ChangeTracker.Validator validator = changeTracker.forCollections(dependencies(fieldSet));
+            if (request.checkNotModified(validator.eTag(), validator.lastModified())) {
+                return null;
+            }
+            return responseCache.respond("movies;" + fieldSet.key(), validator, request, () -> movieService.getAllMovies(fieldSet));
+        }
+        // Movies embed their genres and actors, so changes to either also change the list
+        ChangeTracker.Validator validator = changeTracker.forCollections(EntityType.MOVIE, EntityType.GENRE, EntityType.ACTOR);
+        if (request.checkNotModified(validator.eTag(), validator.lastModified())) {
+            return null;
+        }
+        return responseCache.respond("movies", validator, request, movieService::getAllMovies);
     }
 
     @GetMapping("/{movieId}")
-    public ResponseEntity<Movie> getMovieById(@PathVariable("movieId") Long movieId) {
+    public ResponseEntity<Movie> getMovieById(@PathVariable("movieId") Long movieId, WebRequest request) {
+        ChangeTracker.Validator validator = changeTracker.forEntity(EntityType.MOVIE, movieId, EntityType.GENRE, EntityType.ACTOR);
+        if (request.checkNotModified(validator.eTag(), validator.lastModified())) {
+            return null;
+        }
         Movie movie = movieService.findMovieById(movieId);
         return ResponseEntity.ok(movie);
     }
 
+    // Multi-get: the movies with the given IDs (?ids=3,1,2) in the requested order, plus the IDs that do not exist
+    @GetMapping("/batch")
+    public ResponseEntity<BatchResult<Movie>> getMoviesByIds(@RequestParam("ids") List<Long> movieIds) throws BadRequestException {
+        return ResponseEntity.ok(movieService.findMoviesByIds(movieIds));
+    }
+
+    // The most read movies over the last hour or so, most read first
+    @GetMapping("/trending")
+    public ResponseEntity<List<Movie>> getTrendingMovies(@RequestParam(defaultValue = "10") int limit) throws BadRequestException {
+        return ResponseEntity.ok(movieService.findTrendingMovies(limit));
+    }
+
     @GetMapping("/genre/{genreName}")
     public ResponseEntity<List<Movie>> filterByGenre(@PathVariable String genreName) {
         List<Movie> movieList = movieService.findMoviesByGenre(genreName);
@@ -52,6 +100,13 @@ public class MovieController {
         return new ResponseEntity<List<Movie>>(movieService.findMoviesByReleaseYear(releaseYear), HttpStatus.OK);
     }
 
+    // Movies sharing the most cast and genres with this one, most similar first
+    @GetMapping("/{movieId}/similar")
+    public ResponseEntity<List<Movie>> getSimilarMovies(@PathVariable Long movieId,
+                                                        @RequestParam(defaultValue = "10") int limit) throws BadRequestException {
+        return ResponseEntity.ok(movieService.findSimilarMovies(movieId, limit));
+    }
+
     @GetMapping("/{movieId}/actors")
     public ResponseEntity<Set<Actor>> getActorsByMovie(@PathVariable Long movieId) {
         return new ResponseEntity<Set<Actor>>(movieService.findActorsByMovie(movieId), HttpStatus.OK);
@@ -82,13 +137,20 @@ public class MovieController {
     }
 
     @GetMapping("/search/{someName}")
-    public ResponseEntity<Set<Movie>> findMovies(@PathVariable String someName) {
+    public ResponseEntity<?> findMovies(@PathVariable String someName,
+                                        @RequestParam(required = false) String fields,
+                                        @RequestParam(required = false) String include) throws BadRequestException {
+        if (MovieFieldSet.isRequested(fields, include)) {
+            return ResponseEntity.ok(movieService.findMoviesByPartialName(MovieFieldSet.parse(fields, include), someName));
+        }
         return new ResponseEntity<>(movieService.findMoviesByPartialName(someName), HttpStatus.OK);
     }
 
     @GetMapping("/page")
-    public Page<Movie> getMoviesByPage(@RequestParam(defaultValue = "0") int page,
-                                       @RequestParam(defaultValue = "10") int size) throws BadRequestException {
+    public Page<?> getMoviesByPage(@RequestParam(defaultValue = "0") int page,
+                                   @RequestParam(defaultValue = "10") int size,
+                                   @RequestParam(required = false) String fields,
+                                   @RequestParam(required = false) String include) throws BadRequestException {
         if (page < 0) {
             throw new BadRequestException("Page cannot be negative");
         }
@@ -96,7 +158,83 @@ public class MovieController {
             throw new BadRequestException("Size cannot be zero or negative");
         }
         Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
+        if (MovieFieldSet.isRequested(fields, include)) {
+            return movieService.getMovies(MovieFieldSet.parse(fields, include), pageable);
+        }
         return movieService.getMovies(pageable);
     }
 
+    @GetMapping("/filter")
+    public ResponseEntity<List<Movie>> filterMovies(@RequestParam(name = "genre", required = false) Set<String> genreNames,
+                                                    @RequestParam(required = false) Integer fromYear,
+                                                    @RequestParam(required = false) Integer toYear,
+                                                    @RequestParam(name = "actorId", required = false) Set<Long> actorIds) {
+        return ResponseEntity.ok(movieService.filterMovies(genreNames, fromYear, toYear, actorIds));
+    }
+
+    @GetMapping("/filter/count")
+    public ResponseEntity<Integer> countFilteredMovies(@RequestParam(name = "genre", required = false) Set<String> genreNames,
+                                                       @RequestParam(required = false) Integer fromYear,
+                                                       @RequestParam(required = false) Integer toYear,
+                                                       @RequestParam(name = "actorId", required = false) Set<Long> actorIds) {
+        return ResponseEntity.ok(movieService.countFilteredMovies(genreNames, fromYear, toYear, actorIds));
+    }
+
+    // Entity collections a sparse movie list is built from
+    private static EntityType[] dependencies(MovieFieldSet fieldSet) {
+        List<EntityType> types = new ArrayList<>(List.of(EntityType.MOVIE));
+        if (fieldSet.includesGenres()) {
+            types.add(EntityType.GENRE);
+        }
+        if (fieldSet.includesActors()) {
+            types.add(EntityType.ACTOR);
+        }
+        return types.toArray(EntityType[]::new);
+    }
+
+    // Asynchronous variants: the database work runs on the bounded DatabaseExecutor instead of the request thread
+
+    @PostMapping("/async/add-movie")
+    public WebAsyncTask<ResponseEntity<Movie>> addMovieAsync(@Valid @RequestBody Movie movie) {
+        return databaseExecutor.submit(() -> new ResponseEntity<>(movieService.addMovie(movie), HttpStatus.CREATED));
+    }
+
+    @GetMapping("/async/{movieId}")
+    public WebAsyncTask<Movie> getMovieByIdAsync(@PathVariable("movieId") Long movieId) {
+        return databaseExecutor.submit(() -> movieService.findMovieById(movieId));
+    }
+
+    @GetMapping("/async/genre/{genreName}")
+    public WebAsyncTask<List<Movie>> filterByGenreAsync(@PathVariable String genreName) {
+        return databaseExecutor.submit(() -> movieService.findMoviesByGenre(genreName));
+    }
+
+    @GetMapping("/async/year/{releaseYear}")
+    public WebAsyncTask<List<Movie>> filterByReleaseYearAsync(@PathVariable Long releaseYear) {
+        return databaseExecutor.submit(() -> movieService.findMoviesByReleaseYear(releaseYear));
+    }
+
+    @GetMapping("/async/search/{someName}")
+    public WebAsyncTask<Set<Movie>> findMoviesAsync(@PathVariable String someName) {
+        return databaseExecutor.submit(() -> movieService.findMoviesByPartialName(someName));
+    }
+
+    @PatchMapping("/async/update/{movieId}")
+    public WebAsyncTask<Movie> updateMovieAsync(@PathVariable Long movieId, @RequestBody MovieDTO movieDTO) {
+        return databaseExecutor.submit(() -> movieService.updateMovie(movieId, movieDTO.getMovieTitle(), movieDTO.getReleaseYear(),
+                movieDTO.getDuration(), movieDTO.getGenreSet(), movieDTO.getActorSet(), movieDTO.getActorsToRemove(), movieDTO.getGenresToRemove()));
+    }
+
+    @DeleteMapping("/async/{movieId}")
+    public WebAsyncTask<ResponseEntity<?>> deleteMovieAsync(@PathVariable Long movieId, @RequestParam(name = "force", defaultValue = "false") boolean force) {
+        return databaseExecutor.submit(() -> {
+            try {
+                movieService.deleteMovie(movieId, force);
+                return ResponseEntity.noContent().build();
+            } catch (BadRequestException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            }
+        });
+    }
+
 }
@@ -0,0 +1,69 @@
+package com.example.movies_api.controller;
+
+import com.example.movies_api.dto.MovieDTO;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.sharding.ShardedMovieService;
+import jakarta.validation.Valid;
+import org.apache.coyote.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Movie endpoints backed by the sharded store (movies.sharding.enabled=true), see ShardedMovieService
+@RestController
+@RequestMapping("/api/sharded/movie")
+@ConditionalOnProperty(prefix = "movies.sharding", name = "enabled", havingValue = "true")
+public class ShardedMovieController {
+
+    @Autowired
+    private ShardedMovieService shardedMovieService;
+
+    @PostMapping("/add-movie")
+    public ResponseEntity<Movie> addMovie(@Valid @RequestBody Movie movie) throws BadRequestException {
+        return new ResponseEntity<>(shardedMovieService.addMovie(movie), HttpStatus.CREATED);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Movie>> getAllMovies() {
+        return ResponseEntity.ok(shardedMovieService.getAllMovies());
+    }
+
+    @GetMapping("/{movieId}")
+    public ResponseEntity<Movie> getMovieById(@PathVariable Long movieId) {
+        return ResponseEntity.ok(shardedMovieService.findMovieById(movieId));
+    }
+
+    @GetMapping("/search/{someName}")
+    public ResponseEntity<List<Movie>> searchMovies(@PathVariable String someName) {
+        return ResponseEntity.ok(shardedMovieService.findMoviesByPartialName(someName));
+    }
+
+    @GetMapping("/genre/{genreName}")
+    public ResponseEntity<List<Movie>> filterByGenre(@PathVariable String genreName) {
+        return ResponseEntity.ok(shardedMovieService.findMoviesByGenre(genreName));
+    }
+
+    @GetMapping("/year/{releaseYear}")
+    public ResponseEntity<List<Movie>> filterByReleaseYear(@PathVariable Integer releaseYear) {
+        return ResponseEntity.ok(shardedMovieService.findMoviesByReleaseYear(releaseYear));
+    }
+
+    @PatchMapping("/update/{movieId}")
+    public ResponseEntity<Movie> updateMovie(@PathVariable Long movieId, @RequestBody MovieDTO movieDTO) throws BadRequestException {
+        return ResponseEntity.ok(shardedMovieService.updateMovie(movieId, movieDTO));
+    }
+
+    @DeleteMapping("/{movieId}")
+    public ResponseEntity<?> deleteMovie(@PathVariable Long movieId, @RequestParam(name = "force", defaultValue = "false") boolean force) {
+        try {
+            shardedMovieService.deleteMovie(movieId, force);
+            return ResponseEntity.noContent().build();
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
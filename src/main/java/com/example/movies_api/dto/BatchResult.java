@@ -0,0 +1,47 @@
+package com.example.movies_api.dto;
+
+import org.apache.coyote.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+// Response of the multi-get endpoints: the entities found, in the order their IDs were requested,
+// and the requested IDs that do not exist
+public record BatchResult<T>(List<T> found, List<Long> missing) {
+
+    // Removes repeated IDs, keeping the first occurrence, and rejects empty requests and requests for more than maxIds
+    public static List<Long> distinctIds(List<Long> ids, int maxIds) throws BadRequestException {
+        List<Long> distinct = ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.isEmpty()) {
+            throw new BadRequestException("At least one id is required");
+        }
+        if (distinct.size() > maxIds) {
+            throw new BadRequestException("At most " + maxIds + " ids can be requested at once");
+        }
+        return distinct;
+    }
+
+    // Puts the loaded entities in the order of the requested IDs and lists the IDs nothing was loaded for
+    public static <T> BatchResult<T> of(List<Long> requestedIds, Collection<T> loaded, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T entity : loaded) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        List<T> found = new ArrayList<>(loaded.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requestedIds) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(found, missing);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.movies_api.dto;
+
+import org.apache.coyote.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// The parts of a movie a caller asked for with the fields= and include= request parameters.
+// fields lists movie properties (movieTitle, releaseYear, duration, genreSet, actorSet) and properties of the
+// embedded genres and actors (actorSet.actorName); include adds whole associations (genreSet, actorSet).
+// IDs are always returned. Without fields every movie column is returned, without genreSet/actorSet no
+// association is loaded.
+public record MovieFieldSet(List<String> movieFields, List<String> genreFields, List<String> actorFields) {
+
+    public static final String GENRES = "genreSet";
+    public static final String ACTORS = "actorSet";
+    // Selectable properties in response order; the first one of each list is the ID
+    public static final List<String> MOVIE_PROPERTIES = List.of("movieId", "movieTitle", "releaseYear", "duration");
+    public static final List<String> GENRE_PROPERTIES = List.of("genreId", "genreName");
+    public static final List<String> ACTOR_PROPERTIES = List.of("actorId", "actorName", "birthDate");
+
+    // True if the request asked for a sparse response at all
+    public static boolean isRequested(String fields, String include) {
+        return fields != null || include != null;
+    }
+
+    // Parses the comma-separated fields and include parameters, rejecting unknown names
+    public static MovieFieldSet parse(String fields, String include) throws BadRequestException {
+        Set<String> movie = new LinkedHashSet<>();
+        Set<String> genre = new LinkedHashSet<>();
+        Set<String> actor = new LinkedHashSet<>();
+        boolean allGenreFields = false;
+        boolean allActorFields = false;
+        for (String name : split(fields)) {
+            if (name.equals(GENRES)) {
+                allGenreFields = true;
+            } else if (name.equals(ACTORS)) {
+                allActorFields = true;
+            } else if (name.startsWith(GENRES + ".")) {
+                genre.add(check(name.substring(GENRES.length() + 1), GENRE_PROPERTIES, name));
+            } else if (name.startsWith(ACTORS + ".")) {
+                actor.add(check(name.substring(ACTORS.length() + 1), ACTOR_PROPERTIES, name));
+            } else {
+                movie.add(check(name, MOVIE_PROPERTIES, name));
+            }
+        }
+        for (String name : split(include)) {
+            if (name.equals(GENRES)) {
+                allGenreFields = true;
+            } else if (name.equals(ACTORS)) {
+                allActorFields = true;
+            } else {
+                throw new BadRequestException("Unknown include '" + name + "', expected " + GENRES + " or " + ACTORS);
+            }
+        }
+        return new MovieFieldSet(
+                fields == null ? MOVIE_PROPERTIES : select(MOVIE_PROPERTIES, movie),
+                allGenreFields ? GENRE_PROPERTIES : genre.isEmpty() ? List.of() : select(GENRE_PROPERTIES, genre),
+                allActorFields ? ACTOR_PROPERTIES : actor.isEmpty() ? List.of() : select(ACTOR_PROPERTIES, actor));
+    }
+
+    public boolean includesGenres() {
+        return !genreFields.isEmpty();
+    }
+
+    public boolean includesActors() {
+        return !actorFields.isEmpty();
+    }
+
+    // Identifies the projection in cache keys; equal field sets give equal keys whatever order they were requested in
+    public String key() {
+        return String.join(",", movieFields) + ";" + String.join(",", genreFields) + ";" + String.join(",", actorFields);
+    }
+
+    private static List<String> split(String parameter) {
+        List<String> names = new ArrayList<>();
+        if (parameter != null) {
+            for (String name : parameter.split(",")) {
+                if (!name.isBlank()) {
+                    names.add(name.trim());
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String check(String property, List<String> allowed, String name) throws BadRequestException {
+        if (!allowed.contains(property)) {
+            throw new BadRequestException("Unknown field '" + name + "', expected one of " + allowed);
+        }
+        return property;
+    }
+
+    // The ID followed by the requested properties, in the order of the allowed list
+    private static List<String> select(List<String> allowed, Set<String> requested) {
+        return allowed.stream().filter(property -> property.equals(allowed.get(0)) || requested.contains(property)).toList();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.movies_api.encoding;
+
+import com.example.movies_api.profiling.SerializationEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Response encodings besides JSON, chosen by the Accept header: Smile and CBOR (binary JSON, same document shape)
+// and Protobuf (schema in src/main/proto/movies.proto; movies, actors, genres, their lists, movie pages and errors only)
+@Configuration(proxyBeanMethods = false)
+public class EncodingConfig {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    // Without the charset parameter Spring's own Protobuf converter adds, the encoding is binary
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+    // Encodings of the cached list responses, JSON first so wildcard Accept headers keep getting JSON
+    public static final List<MediaType> RESPONSE_FORMATS = List.of(MediaType.APPLICATION_JSON, SMILE, CBOR, PROTOBUF);
+
+    // The JSON, Smile and CBOR converters record each response they encode as a SerializationEvent.
+    // JSON uses Spring Boot's ObjectMapper. The Smile and CBOR mappers are built from Spring Boot's builder, so
+    // spring.jackson.* settings apply to them as well. All three replace the default converters in place.
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                SerializationEvent.record(MediaType.APPLICATION_JSON, object, () -> super.writeInternal(object, type, outputMessage));
+            }
+        };
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build()) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                SerializationEvent.record(SMILE, object, () -> super.writeInternal(object, type, outputMessage));
+            }
+        };
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build()) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                SerializationEvent.record(CBOR, object, () -> super.writeInternal(object, type, outputMessage));
+            }
+        };
+    }
+
+    // Same as Spring Boot's own HttpMessageConverters bean, except that the Protobuf converter is moved to the end:
+    // converters registered as beans are put first, and with Accept: */* the first converter able to write a body wins
+    @Bean
+    public HttpMessageConverters messageConverters(ObjectProvider<HttpMessageConverter<?>> converters) {
+        return new HttpMessageConverters(converters.orderedStream().toList()) {
+            @Override
+            protected List<HttpMessageConverter<?>> postProcessConverters(List<HttpMessageConverter<?>> converters) {
+                List<HttpMessageConverter<?>> ordered = new ArrayList<>(converters);
+                ordered.sort(Comparator.comparing(converter -> converter instanceof ProtobufCatalogueConverter));
+                return ordered;
+            }
+        };
+    }
+}
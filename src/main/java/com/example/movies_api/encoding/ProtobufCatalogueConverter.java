@@ -0,0 +1,172 @@
+package com.example.movies_api.encoding;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.profiling.SerializationEvent;
+import com.example.movies_api.proto.MoviesProto;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.protobuf.ProtobufHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+
+// Writes movies, actors and genres, lists of them, movie pages and error responses as the messages of movies.proto.
+// Lists and pages are streamed: each element is encoded and written as a repeated field on its own,
+// so a large list is never held as one message. Response-only; requests are still read as JSON.
+// Other bodies are left to the other converters, so a client accepting only Protobuf gets 406 for them.
+@Component
+public class ProtobufCatalogueConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    // Names the message to parse the body with
+    public static final String MESSAGE_HEADER = ProtobufHttpMessageConverter.X_PROTOBUF_MESSAGE_HEADER;
+
+    public ProtobufCatalogueConverter() {
+        super(EncodingConfig.PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Movie.class.isAssignableFrom(clazz) || Actor.class.isAssignableFrom(clazz) || Genre.class.isAssignableFrom(clazz)
+                || Collection.class.isAssignableFrom(clazz) || Page.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz);
+    }
+
+    // Decides by the declared type of the response body, which tells the element types of lists and pages:
+    // entities, lists and pages of entities or of sparse movie rows, and the Map<String, String> error bodies of
+    // GlobalExceptionHandler. Bodies declared without a type (ResponseEntity<?>, Page<?>) are judged by their
+    // class, and their elements are checked while they are written.
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        ResolvableType declared = type == null ? ResolvableType.forClass(clazz) : ResolvableType.forType(type);
+        if (declared.resolve(Object.class) == Object.class) {
+            declared = ResolvableType.forClass(clazz);
+        }
+        Class<?> bodyClass = declared.toClass();
+        if (isEntity(bodyClass)) {
+            return true;
+        }
+        if (Map.class.isAssignableFrom(bodyClass)) {
+            ResolvableType map = declared.as(Map.class);
+            return map.resolveGeneric(0) == String.class && map.resolveGeneric(1) == String.class;
+        }
+        ResolvableType elements;
+        if (Page.class.isAssignableFrom(bodyClass)) {
+            elements = declared.as(Page.class).getGeneric(0);
+        } else if (Collection.class.isAssignableFrom(bodyClass)) {
+            elements = declared.as(Collection.class).getGeneric(0);
+        } else {
+            return false;
+        }
+        Class<?> elementClass = elements.resolve(Object.class);
+        return elementClass == Object.class || isEntity(elementClass)
+                || (Map.class.isAssignableFrom(elementClass) && elements.as(Map.class).resolveGeneric(0) == String.class);
+    }
+
+    private static boolean isEntity(Class<?> clazz) {
+        return Movie.class.isAssignableFrom(clazz) || Actor.class.isAssignableFrom(clazz) || Genre.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected void addDefaultHeaders(HttpHeaders headers, Object body, MediaType contentType) throws IOException {
+        super.addDefaultHeaders(headers, body, contentType);
+        String messageName = messageName(body);
+        if (messageName != null) {
+            headers.set(MESSAGE_HEADER, messageName);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        SerializationEvent.record(EncodingConfig.PROTOBUF, body, () -> write(body, outputMessage));
+    }
+
+    private void write(Object body, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+        if (body instanceof Page<?> page) {
+            writeElements(page.getContent(), output);
+            output.writeInt32(MoviesProto.MoviePage.NUMBER_FIELD_NUMBER, page.getNumber());
+            output.writeInt32(MoviesProto.MoviePage.SIZE_FIELD_NUMBER, page.getSize());
+            output.writeInt64(MoviesProto.MoviePage.TOTAL_ELEMENTS_FIELD_NUMBER, page.getTotalElements());
+            output.writeInt32(MoviesProto.MoviePage.TOTAL_PAGES_FIELD_NUMBER, page.getTotalPages());
+        } else if (body instanceof Collection<?> elements) {
+            writeElements(elements, output);
+        } else if (body instanceof Map<?, ?> details) {
+            ProtobufMapper.toError(details).writeTo(output);
+        } else {
+            ProtobufMapper.toMessage(body).writeTo(output);
+        }
+        output.flush();
+    }
+
+    // Every list message and MoviePage hold their elements in field 1
+    private static void writeElements(Collection<?> elements, CodedOutputStream output) throws IOException {
+        for (Object element : elements) {
+            if (!ProtobufMapper.isElement(element)) {
+                throw new HttpMessageNotWritableException("No Protobuf message for " + element.getClass().getSimpleName());
+            }
+            output.writeMessage(1, ProtobufMapper.toMessage(element));
+        }
+    }
+
+    // Full name of the message the body is encoded as, or null for an empty list whose element type is unknown
+    private static String messageName(Object body) {
+        if (body instanceof Page<?>) {
+            return MoviesProto.MoviePage.getDescriptor().getFullName();
+        }
+        if (body instanceof Collection<?> elements) {
+            Object first = elements.isEmpty() ? null : elements.iterator().next();
+            if (first instanceof Actor) {
+                return MoviesProto.ActorList.getDescriptor().getFullName();
+            }
+            if (first instanceof Genre) {
+                return MoviesProto.GenreList.getDescriptor().getFullName();
+            }
+            return first == null ? null : MoviesProto.MovieList.getDescriptor().getFullName();
+        }
+        if (body instanceof Map<?, ?>) {
+            return MoviesProto.Error.getDescriptor().getFullName();
+        }
+        if (body instanceof Actor) {
+            return MoviesProto.Actor.getDescriptor().getFullName();
+        }
+        if (body instanceof Genre) {
+            return MoviesProto.Genre.getDescriptor().getFullName();
+        }
+        return MoviesProto.Movie.getDescriptor().getFullName();
+    }
+}
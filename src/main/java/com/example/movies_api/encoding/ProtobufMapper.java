@@ -0,0 +1,129 @@
+package com.example.movies_api.encoding;
+
+import com.example.movies_api.dto.MovieFieldSet;
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.proto.MoviesProto;
+import com.google.protobuf.Message;
+
+import java.util.List;
+import java.util.Map;
+
+// Converts entities, and the rows of sparse fieldset responses, to the messages of movies.proto.
+// Properties without a value are not set, so they take no space on the wire.
+final class ProtobufMapper {
+
+    private ProtobufMapper() {
+    }
+
+    // True for the element types a list or page response may hold
+    static boolean isElement(Object value) {
+        return value instanceof Movie || value instanceof Actor || value instanceof Genre || value instanceof Map;
+    }
+
+    // Encodes one entity or sparse movie row
+    static Message toMessage(Object value) {
+        if (value instanceof Movie movie) {
+            return toMovie(movie);
+        }
+        if (value instanceof Actor actor) {
+            return toActor(actor);
+        }
+        if (value instanceof Genre genre) {
+            return toGenre(genre);
+        }
+        if (value instanceof Map<?, ?> row) {
+            return toMovie(row);
+        }
+        throw new IllegalArgumentException("No Protobuf message for " + value.getClass().getSimpleName());
+    }
+
+    static MoviesProto.Movie toMovie(Movie movie) {
+        MoviesProto.Movie.Builder builder = MoviesProto.Movie.newBuilder().setMovieId(movie.getMovieId());
+        if (movie.getMovieTitle() != null) {
+            builder.setMovieTitle(movie.getMovieTitle());
+        }
+        if (movie.getReleaseYear() != null) {
+            builder.setReleaseYear(movie.getReleaseYear());
+        }
+        if (movie.getDuration() != null) {
+            builder.setDuration(movie.getDuration());
+        }
+        if (movie.getVersion() != null) {
+            builder.setVersion(movie.getVersion());
+        }
+        movie.getGenreSet().forEach(genre -> builder.addGenres(toGenre(genre)));
+        movie.getActorSet().forEach(actor -> builder.addActors(toActor(actor)));
+        return builder.build();
+    }
+
+    static MoviesProto.Actor toActor(Actor actor) {
+        MoviesProto.Actor.Builder builder = MoviesProto.Actor.newBuilder().setActorId(actor.getActorId());
+        if (actor.getActorName() != null) {
+            builder.setActorName(actor.getActorName());
+        }
+        if (actor.getBirthDate() != null) {
+            builder.setBirthDate(actor.getBirthDate());
+        }
+        if (actor.getVersion() != null) {
+            builder.setVersion(actor.getVersion());
+        }
+        return builder.build();
+    }
+
+    static MoviesProto.Genre toGenre(Genre genre) {
+        MoviesProto.Genre.Builder builder = MoviesProto.Genre.newBuilder().setGenreId(genre.getGenreId());
+        if (genre.getGenreName() != null) {
+            builder.setGenreName(genre.getGenreName());
+        }
+        if (genre.getVersion() != null) {
+            builder.setVersion(genre.getVersion());
+        }
+        return builder.build();
+    }
+
+    // An error response of GlobalExceptionHandler
+    static MoviesProto.Error toError(Map<?, ?> details) {
+        MoviesProto.Error.Builder builder = MoviesProto.Error.newBuilder();
+        details.forEach((key, value) -> builder.putDetails(String.valueOf(key), String.valueOf(value)));
+        return builder.build();
+    }
+
+    // A movie row of a sparse fieldset response, holding only the requested properties
+    private static MoviesProto.Movie toMovie(Map<?, ?> row) {
+        MoviesProto.Movie.Builder builder = MoviesProto.Movie.newBuilder().setMovieId((Long) row.get("movieId"));
+        if (row.get("movieTitle") instanceof String title) {
+            builder.setMovieTitle(title);
+        }
+        if (row.get("releaseYear") instanceof Integer releaseYear) {
+            builder.setReleaseYear(releaseYear);
+        }
+        if (row.get("duration") instanceof Float duration) {
+            builder.setDuration(duration);
+        }
+        for (Map<?, ?> genre : rows(row.get(MovieFieldSet.GENRES))) {
+            MoviesProto.Genre.Builder genreBuilder = MoviesProto.Genre.newBuilder().setGenreId((Long) genre.get("genreId"));
+            if (genre.get("genreName") instanceof String name) {
+                genreBuilder.setGenreName(name);
+            }
+            builder.addGenres(genreBuilder);
+        }
+        for (Map<?, ?> actor : rows(row.get(MovieFieldSet.ACTORS))) {
+            MoviesProto.Actor.Builder actorBuilder = MoviesProto.Actor.newBuilder().setActorId((Long) actor.get("actorId"));
+            if (actor.get("actorName") instanceof String name) {
+                actorBuilder.setActorName(name);
+            }
+            if (actor.get("birthDate") instanceof String birthDate) {
+                actorBuilder.setBirthDate(birthDate);
+            }
+            builder.addActors(actorBuilder);
+        }
+        return builder.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<?, ?>> rows(Object association) {
+        return association == null ? List.of() : (List<Map<?, ?>>) association;
+    }
+}
@@ -10,7 +10,13 @@ import jakarta.validation.constraints.Past;
 import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
@@ -23,12 +29,17 @@ import java.util.Set;
 @NoArgsConstructor
 @Entity
 @Table(name = "actor")
+// Looked up by name on every movie write, kept in the second-level cache (see ehcache.xml)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Actor {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "actor_seq")
     @SequenceGenerator(name = "actor_seq", sequenceName = "actor_sequence", allocationSize = 1)
     private Long actorId;
     @NotBlank(message = "Actor name cannot be blank")
+    @NaturalId(mutable = true)
     private String actorName;
     @NotNull(message = "Birth date cannot be blank")
     @Column(name = "birth_date", columnDefinition = "TEXT")
@@ -36,7 +47,17 @@ public class Actor {
     @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Birth date must be in ISO 8601 format (yyyy-MM-dd)")
     private String birthDate;
 
+    // Left out of equals and hashCode: adding an actor to a movie's actor set must not load the actor's movies
     @ManyToMany(mappedBy = "actorSet")
     @JsonIgnore
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @EqualsAndHashCode.Exclude
     private Set<Movie> movieSet = new HashSet<>();
+
+    // Incremented by every update, used for optimistic locking
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @EqualsAndHashCode.Exclude
+    private Long version;
 }
@@ -0,0 +1,55 @@
+package com.example.movies_api.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Row of the catalogue outbox: one committed create, update or delete of a movie, actor or genre.
+// Event IDs are assigned by SQLite inside the writing transaction, and SQLite allows a single writer
+// at a time, so ID order is commit order and consumers can resume from the last ID they processed.
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "catalogue_event")
+public class CatalogueEvent {
+
+    public enum Operation {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long eventId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EntityType entityType;
+    @Column(nullable = false)
+    private Long entityId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Operation operation;
+    // Comma-separated names of the changed fields, empty for deletes
+    @JsonIgnore
+    @Column(name = "changed_fields", columnDefinition = "TEXT")
+    private String changedFields;
+    @Column(name = "created_at", columnDefinition = "TEXT")
+    private String createdAt;
+
+    @JsonProperty("changedFields")
+    public List<String> getChangedFieldList() {
+        if (changedFields == null || changedFields.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.asList(changedFields.split(","));
+    }
+}
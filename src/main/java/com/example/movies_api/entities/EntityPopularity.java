@@ -0,0 +1,38 @@
+package com.example.movies_api.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+// Decayed read score of a movie, actor or genre, flushed periodically from the in-memory popularity counters
+// so trending lists and cache pre-warming survive restarts. Only the top entries of each type are kept.
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "entity_popularity")
+@IdClass(EntityPopularity.Key.class)
+public class EntityPopularity {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private EntityType entityType;
+        private Long entityId;
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private EntityType entityType;
+    @Id
+    private Long entityId;
+    @Column(nullable = false)
+    private Double score;
+    @Column(name = "flushed_at", columnDefinition = "TEXT")
+    private String flushedAt;
+}
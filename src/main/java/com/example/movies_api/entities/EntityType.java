@@ -0,0 +1,8 @@
+package com.example.movies_api.entities;
+
+// The kinds of catalogue entities exposed by the API
+public enum EntityType {
+    MOVIE,
+    ACTOR,
+    GENRE
+}
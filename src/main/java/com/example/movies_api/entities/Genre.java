@@ -4,6 +4,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -16,6 +21,10 @@ import java.util.Set;
 @Builder
 @Entity
 @Table(name = "genre")
+// Reference data read on every movie write, kept in the second-level cache (see ehcache.xml)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Genre {
 
     @Id
@@ -23,11 +32,19 @@ public class Genre {
     @SequenceGenerator(name = "genre_seq", sequenceName = "genre_sequence", allocationSize = 1)
     private Long genreId;
     @NotBlank(message = "Genre name cannot be blank")
+    @NaturalId(mutable = true)
     private String genreName;
 
     @ManyToMany(mappedBy = "genreSet")
     @JsonIgnore
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Movie> movieSet = new HashSet<>();
+
+    // Incremented by every update, used for optimistic locking
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 /*
     @JsonProperty("movie")
     public List<Map<String, Object>> getMoviesForSerialization() {
@@ -7,6 +7,7 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -52,5 +53,10 @@ public class Movie {
 
     private Set<Actor> actorSet = new HashSet<>();
 
+    // Incremented by every update, used for optimistic locking
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 
 }
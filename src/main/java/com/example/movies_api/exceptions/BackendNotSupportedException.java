@@ -0,0 +1,8 @@
+package com.example.movies_api.exceptions;
+
+// Thrown when a feature needs a database backend other than the configured one, answered with 501 NOT IMPLEMENTED
+public class BackendNotSupportedException extends RuntimeException {
+    public BackendNotSupportedException(String msg) {
+        super(msg);
+    }
+}
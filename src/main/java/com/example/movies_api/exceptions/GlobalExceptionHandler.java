@@ -3,13 +3,17 @@ package com.example.movies_api.exceptions;
 
 import jakarta.validation.ConstraintViolationException;
 import org.apache.coyote.BadRequestException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import java.time.Instant;
 import java.util.HashMap;
@@ -18,24 +22,61 @@ import java.util.Map;
 @ControllerAdvice // Indicates that this class will handle exceptions globally for all controllers
 public class GlobalExceptionHandler {
 
+    // Time of the latest error response, formatted. Probes for missing IDs arrive in bursts, so the responses
+    // within one millisecond share one string instead of each formatting the clock
+    private volatile Timestamp lastTimestamp = new Timestamp(0, "");
+
+    private record Timestamp(long millis, String formatted) {
+    }
+
     // Handles ResourceNotFoundException and returns a 404 NOT FOUND response
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleActorNotFoundException(ResourceNotFoundException ex) {
         Map<String, String> errorResponse = new HashMap<>();
         errorResponse.put("message", ex.getMessage());// Add the exception message to the response
-        errorResponse.put("timestamp", String.valueOf(Instant.now()));// Add the current timestamp
+        errorResponse.put("timestamp", timestamp());// Add the current timestamp
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);// Return the error response with NOT FOUND status
     }
 
     // Handles BadRequestException and returns a 400 BAD REQUEST response
     @ExceptionHandler(BadRequestException.class)
-    public ResponseEntity<Object> handleBadRequestException(BadRequestException ex, WebRequest request) {
+    public ResponseEntity<Map<String, String>> handleBadRequestException(BadRequestException ex, WebRequest request) {
         Map<String, String> errorDetails = new HashMap<>();
         errorDetails.put("message", ex.getMessage());// Add the exception message to the response
-        errorDetails.put("timestamp", String.valueOf(Instant.now()));// Add the current timestamp
+        errorDetails.put("timestamp", timestamp());// Add the current timestamp
         return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);// Return the error details with BAD REQUEST status
     }
 
+    // Handles concurrent updates of the same entity and returns a 409 CONFLICT response
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("message", "The resource was modified concurrently, please retry");// Add the conflict message to the response
+        errorResponse.put("timestamp", timestamp());// Add the current timestamp
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);// Return the error response with CONFLICT status
+    }
+
+    // Handles features the configured database backend does not offer and returns a 501 NOT IMPLEMENTED response
+    @ExceptionHandler(BackendNotSupportedException.class)
+    public ResponseEntity<Map<String, String>> handleBackendNotSupported(BackendNotSupportedException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("message", ex.getMessage());// Add the exception message to the response
+        errorResponse.put("timestamp", timestamp());// Add the current timestamp
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_IMPLEMENTED);// Return the error response with NOT IMPLEMENTED status
+    }
+
+    // Handles asynchronous requests that were shed because the database executor is saturated or that timed out,
+    // and returns a 503 SERVICE UNAVAILABLE response telling the client when to retry
+    @ExceptionHandler({TaskRejectedException.class, AsyncRequestTimeoutException.class})
+    public ResponseEntity<Map<String, String>> handleDatabaseSaturated(Exception ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("message", "The service is busy, please retry later");// Add the overload message to the response
+        errorResponse.put("timestamp", timestamp());// Add the current timestamp
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);// Return the error response with SERVICE UNAVAILABLE status
+    }
+
     // Handles validation exceptions when method arguments are not valid
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -73,4 +114,14 @@ public class GlobalExceptionHandler {
         String errorMessage = "Invalid date format (must by: YYYY-MM-DD): " + ex.getMostSpecificCause().getMessage();
         return new ResponseEntity<>(errorMessage, HttpStatus.BAD_REQUEST);// Return the error message with BAD REQUEST status
     }
+
+    private String timestamp() {
+        long now = System.currentTimeMillis();
+        Timestamp last = lastTimestamp;
+        if (last.millis() != now) {
+            last = new Timestamp(now, Instant.ofEpochMilli(now).toString());
+            lastTimestamp = last;
+        }
+        return last.formatted();
+    }
 }
\ No newline at end of file
@@ -5,8 +5,9 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Actor not found")
 public class ResourceNotFoundException extends RuntimeException{
+    // Not-found responses are expected traffic and the handler never reads the stack trace, so none is captured
     public ResourceNotFoundException(String msg){
-        super(msg);
+        super(msg, null, false, false);
 
     }
 }
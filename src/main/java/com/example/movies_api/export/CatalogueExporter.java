@@ -0,0 +1,191 @@
+package com.example.movies_api.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Streams every movie with its genres and actors, ordered by movie ID, in chunks of chunk-size movies.
+// Each chunk is read by three queries (movies, then the movie-genre and movie-actor rows of just those movies)
+// in one short read-only transaction, and written to the client only after that transaction has ended.
+// Memory use is bounded by the chunk size, and no database lock is held while a slow client downloads:
+// SQLite in rollback-journal mode would otherwise make every writer's commit wait for the whole export.
+// Each chunk is a consistent snapshot; changes committed between chunks show up in later chunks only.
+@Component
+public class CatalogueExporter {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Movies read per transaction
+    @Value("${movies.export.chunk-size:1000}")
+    private int chunkSize;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private static final String MOVIES_SQL = "SELECT movie_id, movie_title, release_year, duration FROM movie "
+            + "WHERE movie_id > ? ORDER BY movie_id LIMIT ?";
+    private static final String GENRES_SQL = "SELECT gm.movie_id, g.genre_id, g.genre_name FROM genre_movies gm "
+            + "JOIN genre g ON g.genre_id = gm.genre_id WHERE gm.movie_id > ? AND gm.movie_id <= ? ORDER BY gm.movie_id, g.genre_name";
+    private static final String ACTORS_SQL = "SELECT ma.movie_id, a.actor_id, a.actor_name, a.birth_date FROM movie_actors ma "
+            + "JOIN actor a ON a.actor_id = ma.actor_id WHERE ma.movie_id > ? AND ma.movie_id <= ? ORDER BY ma.movie_id, a.actor_name";
+
+    public record ExportedGenre(long genreId, String genreName) {
+    }
+
+    public record ExportedActor(long actorId, String actorName, String birthDate) {
+    }
+
+    public record ExportedMovie(long movieId, String movieTitle, Integer releaseYear, Float duration,
+                                List<ExportedGenre> genres, List<ExportedActor> actors) {
+    }
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Writes all movies with an ID greater than afterMovieId. Each chunk resumes after the last movie ID of the
+    // previous one, the same way an interrupted export is resumed by passing the last movieId received.
+    public void export(ExportFormat format, long afterMovieId, Writer out) throws IOException {
+        MovieWriter writer = format == ExportFormat.CSV ? new CsvMovieWriter(out) : new NdjsonMovieWriter(out);
+        long lastMovieId = afterMovieId;
+        List<ExportedMovie> chunk;
+        do {
+            long after = lastMovieId;
+            chunk = readOnlyTransaction.execute(status -> readChunk(after));
+            for (ExportedMovie movie : chunk) {
+                writer.write(movie);
+            }
+            if (!chunk.isEmpty()) {
+                lastMovieId = chunk.get(chunk.size() - 1).movieId();
+            }
+        } while (chunk.size() == chunkSize);
+        writer.finish();
+    }
+
+    // The next chunkSize movies after the given ID with their genres and actors
+    private List<ExportedMovie> readChunk(long afterMovieId) {
+        List<ExportedMovie> movies = jdbcTemplate.query(MOVIES_SQL, (row, rowNum) -> {
+            long movieId = row.getLong(1);
+            String movieTitle = row.getString(2);
+            int releaseYear = row.getInt(3);
+            Integer nullableReleaseYear = row.wasNull() ? null : releaseYear;
+            float duration = row.getFloat(4);
+            Float nullableDuration = row.wasNull() ? null : duration;
+            return new ExportedMovie(movieId, movieTitle, nullableReleaseYear, nullableDuration, new ArrayList<>(), new ArrayList<>());
+        }, afterMovieId, chunkSize);
+        if (movies.isEmpty()) {
+            return movies;
+        }
+        Map<Long, ExportedMovie> byId = new LinkedHashMap<>();
+        movies.forEach(movie -> byId.put(movie.movieId(), movie));
+        long lastMovieId = movies.get(movies.size() - 1).movieId();
+        // Rows of movies that are not in the chunk (e.g. added meanwhile under READ COMMITTED) are skipped
+        jdbcTemplate.query(GENRES_SQL, (RowCallbackHandler) row -> {
+            ExportedMovie movie = byId.get(row.getLong(1));
+            if (movie != null) {
+                movie.genres().add(new ExportedGenre(row.getLong(2), row.getString(3)));
+            }
+        }, afterMovieId, lastMovieId);
+        jdbcTemplate.query(ACTORS_SQL, (RowCallbackHandler) row -> {
+            ExportedMovie movie = byId.get(row.getLong(1));
+            if (movie != null) {
+                movie.actors().add(new ExportedActor(row.getLong(2), row.getString(3), row.getString(4)));
+            }
+        }, afterMovieId, lastMovieId);
+        return movies;
+    }
+
+    private interface MovieWriter {
+        void write(ExportedMovie movie) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    // One JSON object per line
+    private class NdjsonMovieWriter implements MovieWriter {
+        private final JsonGenerator generator;
+        // Flushing is left to the buffered writer instead of happening after every movie
+        private final ObjectWriter movieWriter = objectMapper.writerFor(ExportedMovie.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        private NdjsonMovieWriter(Writer out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        public void write(ExportedMovie movie) throws IOException {
+            movieWriter.writeValue(generator, movie);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+    }
+
+    // RFC 4180 CSV with a header row; genre and actor names are joined with '|'
+    private static class CsvMovieWriter implements MovieWriter {
+        private final Writer out;
+
+        private CsvMovieWriter(Writer out) throws IOException {
+            this.out = out;
+            out.write("movieId,movieTitle,releaseYear,duration,genres,actors\r\n");
+        }
+
+        @Override
+        public void write(ExportedMovie movie) throws IOException {
+            out.write(String.valueOf(movie.movieId()));
+            out.write(',');
+            out.write(quote(movie.movieTitle()));
+            out.write(',');
+            out.write(movie.releaseYear() == null ? "" : String.valueOf(movie.releaseYear()));
+            out.write(',');
+            out.write(movie.duration() == null ? "" : String.valueOf(movie.duration()));
+            out.write(',');
+            out.write(quote(movie.genres().stream().map(ExportedGenre::genreName).collect(Collectors.joining("|"))));
+            out.write(',');
+            out.write(quote(movie.actors().stream().map(ExportedActor::actorName).collect(Collectors.joining("|"))));
+            out.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+
+        private static String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.movies_api.export;
+
+import org.apache.coyote.BadRequestException;
+
+// Output formats of the catalogue export
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    // Parses the format request parameter, case-insensitively
+    public static ExportFormat fromParameter(String format) throws BadRequestException {
+        for (ExportFormat exportFormat : values()) {
+            if (exportFormat.name().equalsIgnoreCase(format)) {
+                return exportFormat;
+            }
+        }
+        throw new BadRequestException("Unknown export format '" + format + "', expected ndjson or csv");
+    }
+}
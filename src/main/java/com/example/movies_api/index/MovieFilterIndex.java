@@ -0,0 +1,284 @@
+package com.example.movies_api.index;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.repository.MovieRepository;
+import com.example.movies_api.transaction.TransactionHooks;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// In-memory secondary index mapping genre ids, release years and actor ids to bitmaps of movie ids.
+// Filter queries are answered here and only the resulting ids are loaded from the database.
+// It also tells lookups of movie ids and titles that cannot exist apart, so they are answered without a query.
+@Component
+public class MovieFilterIndex {
+    @Autowired
+    private MovieRepository movieRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Serializes full rebuilds (startup, restores and reloads)
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Replaced as a whole by a rebuild, so lookups never see a partly built index
+    private volatile State state = new State(null);
+    // Changes committed while a rebuild was reading the database, applied again on top of its result
+    private List<Consumer<State>> pendingChanges;
+
+    // Title filter headroom over the current number of movies, and its false positive rate
+    private static final int TITLE_CAPACITY_FACTOR = 2;
+    private static final double TITLE_FALSE_POSITIVE_RATE = 0.01;
+
+    private record IndexedMovie(Integer releaseYear, Set<Long> genreIds, Set<Long> actorIds) {
+    }
+
+    private static class State {
+        private final Map<Long, RoaringBitmap> moviesByGenre = new HashMap<>();
+        private final NavigableMap<Integer, RoaringBitmap> moviesByYear = new TreeMap<>();
+        private final Map<Long, RoaringBitmap> moviesByActor = new HashMap<>();
+        // Keys each movie is currently indexed under, so updates and deletes can clear the old entries
+        private final Map<Long, IndexedMovie> indexedMovies = new HashMap<>();
+        private final RoaringBitmap allMovies = new RoaringBitmap();
+        // Titles of all indexed movies; null until the index is first built
+        private final BloomFilter titles;
+
+        private State(BloomFilter titles) {
+            this.titles = titles;
+        }
+    }
+
+    // Rebuilds the whole index from the database once the application has started. Lookups are answered from
+    // the previous index until the new one is complete.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            State next = null;
+            try {
+                next = load();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    // Without a new index (the load failed) the current one already has every change
+                    if (next != null) {
+                        for (Consumer<State> change : pendingChanges) {
+                            change.accept(next);
+                        }
+                        state = next;
+                    }
+                    pendingChanges = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private State load() {
+        Map<Long, Integer> years = new HashMap<>();
+        Map<Long, Set<Long>> genres = new HashMap<>();
+        Map<Long, Set<Long>> actors = new HashMap<>();
+        for (Object[] row : movieRepository.findAllMovieIdsAndReleaseYears()) {
+            years.put((Long) row[0], (Integer) row[1]);
+        }
+        for (Object[] row : movieRepository.findAllMovieGenrePairs()) {
+            genres.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+        for (Object[] row : movieRepository.findAllMovieActorPairs()) {
+            actors.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+        List<String> movieTitles = movieRepository.findAllMovieTitles();
+        BloomFilter titleFilter = new BloomFilter(Math.max(1024, movieTitles.size() * TITLE_CAPACITY_FACTOR), TITLE_FALSE_POSITIVE_RATE);
+        movieTitles.forEach(titleFilter::add);
+        State next = new State(titleFilter);
+        years.forEach((movieId, year) -> add(next, movieId, new IndexedMovie(year,
+                genres.getOrDefault(movieId, Set.of()), actors.getOrDefault(movieId, Set.of()))));
+        return next;
+    }
+
+    // Indexes a newly saved movie or re-indexes an updated one once the surrounding transaction commits
+    public void put(Movie movie) {
+        Set<Long> genreIds = new HashSet<>();
+        for (Genre genre : movie.getGenreSet()) {
+            genreIds.add(genre.getGenreId());
+        }
+        Set<Long> actorIds = new HashSet<>();
+        for (Actor actor : movie.getActorSet()) {
+            actorIds.add(actor.getActorId());
+        }
+        Long movieId = movie.getMovieId();
+        IndexedMovie indexed = new IndexedMovie(movie.getReleaseYear(), genreIds, actorIds);
+        String title = movie.getMovieTitle();
+        TransactionHooks.afterCommit(() -> change(state -> {
+            remove(state, movieId);
+            add(state, movieId, indexed);
+            if (state.titles != null && title != null) {
+                state.titles.add(title);
+            }
+        }));
+    }
+
+    // Removes a deleted movie from every bitmap it is part of once the surrounding transaction commits
+    public void removeMovie(Long movieId) {
+        TransactionHooks.afterCommit(() -> change(state -> remove(state, movieId)));
+    }
+
+    // Drops a deleted genre from the index and from the movies that referenced it
+    public void removeGenre(Long genreId) {
+        TransactionHooks.afterCommit(() -> change(state -> {
+            RoaringBitmap movieIds = state.moviesByGenre.remove(genreId);
+            if (movieIds != null) {
+                movieIds.forEach((int id) -> state.indexedMovies.get((long) id).genreIds().remove(genreId));
+            }
+        }));
+    }
+
+    // Drops a deleted actor from the index and from the movies that referenced them
+    public void removeActor(Long actorId) {
+        TransactionHooks.afterCommit(() -> change(state -> {
+            RoaringBitmap movieIds = state.moviesByActor.remove(actorId);
+            if (movieIds != null) {
+                movieIds.forEach((int id) -> state.indexedMovies.get((long) id).actorIds().remove(actorId));
+            }
+        }));
+    }
+
+    // False only if no movie has this id; always true before the index is first built
+    public boolean mayContainMovie(Long movieId) {
+        lock.readLock().lock();
+        try {
+            return state.titles == null || movieId == null || (movieId >= 0 && movieId <= Integer.MAX_VALUE
+                    && state.allMovies.contains(movieId.intValue()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // False only if no movie has exactly this title. Titles of deleted or renamed movies stay possible matches
+    // until the next rebuild
+    public boolean mayContainTitle(String movieTitle) {
+        BloomFilter filter = state.titles;
+        return filter == null || movieTitle == null || filter.mightContain(movieTitle);
+    }
+
+    // Returns the ids of movies matching any of the genres AND released within the year range AND
+    // featuring any of the actors. Null or empty arguments do not restrict the result.
+    public RoaringBitmap filter(Collection<Long> genreIds, Integer fromYear, Integer toYear, Collection<Long> actorIds) {
+        lock.readLock().lock();
+        try {
+            State state = this.state;
+            RoaringBitmap result = state.allMovies.clone();
+            if (genreIds != null && !genreIds.isEmpty()) {
+                result.and(union(state.moviesByGenre, genreIds));
+            }
+            if (fromYear != null || toYear != null) {
+                int from = fromYear != null ? fromYear : Integer.MIN_VALUE;
+                int to = toYear != null ? toYear : Integer.MAX_VALUE;
+                RoaringBitmap years = from > to ? new RoaringBitmap()
+                        : RoaringBitmap.or(state.moviesByYear.subMap(from, true, to, true).values().iterator());
+                result.and(years);
+            }
+            if (actorIds != null && !actorIds.isEmpty()) {
+                result.and(union(state.moviesByActor, actorIds));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same as filter, but only returns the number of matching movies
+    public int count(Collection<Long> genreIds, Integer fromYear, Integer toYear, Collection<Long> actorIds) {
+        return filter(genreIds, fromYear, toYear, actorIds).getCardinality();
+    }
+
+    // Converts a bitmap of movie ids into a list suitable for an IN (...) query
+    public static List<Long> toIdList(RoaringBitmap bitmap) {
+        List<Long> ids = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int id) -> ids.add((long) id));
+        return ids;
+    }
+
+    private static RoaringBitmap union(Map<Long, RoaringBitmap> bitmaps, Collection<Long> keys) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (Long key : keys) {
+            RoaringBitmap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    // Applies a change to the index and records it for a rebuild that is reading the database meanwhile
+    private void change(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(State state, Long movieId, IndexedMovie movie) {
+        int id = Math.toIntExact(movieId);
+        state.allMovies.add(id);
+        if (movie.releaseYear() != null) {
+            state.moviesByYear.computeIfAbsent(movie.releaseYear(), year -> new RoaringBitmap()).add(id);
+        }
+        for (Long genreId : movie.genreIds()) {
+            state.moviesByGenre.computeIfAbsent(genreId, key -> new RoaringBitmap()).add(id);
+        }
+        for (Long actorId : movie.actorIds()) {
+            state.moviesByActor.computeIfAbsent(actorId, key -> new RoaringBitmap()).add(id);
+        }
+        state.indexedMovies.put(movieId, new IndexedMovie(movie.releaseYear(),
+                new HashSet<>(movie.genreIds()), new HashSet<>(movie.actorIds())));
+    }
+
+    private static void remove(State state, Long movieId) {
+        IndexedMovie movie = state.indexedMovies.remove(movieId);
+        if (movie == null) {
+            return;
+        }
+        int id = Math.toIntExact(movieId);
+        state.allMovies.remove(id);
+        if (movie.releaseYear() != null) {
+            removeFrom(state.moviesByYear, movie.releaseYear(), id);
+        }
+        for (Long genreId : movie.genreIds()) {
+            removeFrom(state.moviesByGenre, genreId, id);
+        }
+        for (Long actorId : movie.actorIds()) {
+            removeFrom(state.moviesByActor, actorId, id);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int id) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.movies_api.index;
+
+import com.example.movies_api.entities.EntityType;
+import com.example.movies_api.repository.ActorRepository;
+import com.example.movies_api.repository.GenreRepository;
+import com.example.movies_api.transaction.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// In-memory dictionary of genre and actor names (case-folded) to IDs, so movie writes resolve existing
+// names with a hash lookup and only genuinely new names reach the database.
+// Lookups are lock-free. Creating a name takes one of a fixed set of striped locks and checks the dictionary
+// again under it, so concurrent creators of the same name end up with one row instead of duplicates.
+// As every genre and actor is known here, lookups of IDs and names that do not exist are answered without a query.
+// Reloads build a new dictionary and swap it in, replaying the changes made while they read the database, so
+// existing names never go missing in between.
+@Component
+public class NameDictionary {
+    @Autowired
+    private GenreRepository genreRepository;
+    @Autowired
+    private ActorRepository actorRepository;
+
+    // Number of locks that creations are spread over by name hash
+    private static final int LOCK_STRIPES = 64;
+
+    private final ReentrantLock[] creationLocks = new ReentrantLock[LOCK_STRIPES];
+    // Serializes reloads
+    private final ReentrantLock loadLock = new ReentrantLock();
+    // Guards changes to the dictionary and pendingChanges; lookups do not take it
+    private final Object changeLock = new Object();
+    // Replaced as a whole by a reload
+    private volatile Dictionary dictionary = new Dictionary();
+    // Changes made while a reload was reading the database, applied again on top of its result
+    private List<Consumer<Dictionary>> pendingChanges;
+
+    private static class Dictionary {
+        private final Map<EntityType, Map<String, Long>> ids = new EnumMap<>(EntityType.class);
+        private final Map<EntityType, Set<Long>> knownIds = new EnumMap<>(EntityType.class);
+
+        private Dictionary() {
+            ids.put(EntityType.GENRE, new ConcurrentHashMap<>());
+            ids.put(EntityType.ACTOR, new ConcurrentHashMap<>());
+            knownIds.put(EntityType.GENRE, ConcurrentHashMap.newKeySet());
+            knownIds.put(EntityType.ACTOR, ConcurrentHashMap.newKeySet());
+        }
+
+        private Map<String, Long> names(EntityType type) {
+            Map<String, Long> names = ids.get(type);
+            if (names == null) {
+                throw new IllegalArgumentException("No name dictionary for " + type);
+            }
+            return names;
+        }
+
+        private void put(EntityType type, String name, Long id) {
+            names(type).put(fold(name), id);
+            knownIds.get(type).add(id);
+        }
+
+        private void remove(EntityType type, String name, Long id) {
+            names(type).remove(fold(name), id);
+            knownIds.get(type).remove(id);
+        }
+    }
+
+    public NameDictionary() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            creationLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // Loads all names before the first request can resolve one; later calls reload them
+    @PostConstruct
+    public void load() {
+        loadLock.lock();
+        try {
+            synchronized (changeLock) {
+                pendingChanges = new ArrayList<>();
+            }
+            Dictionary next = null;
+            try {
+                Dictionary loaded = new Dictionary();
+                load(loaded, EntityType.GENRE, genreRepository.findAllGenreIdsAndNames());
+                load(loaded, EntityType.ACTOR, actorRepository.findAllActorIdsAndNames());
+                next = loaded;
+            } finally {
+                synchronized (changeLock) {
+                    // Without a new dictionary (the load failed) the current one already has every change
+                    if (next != null) {
+                        for (Consumer<Dictionary> change : pendingChanges) {
+                            change.accept(next);
+                        }
+                        dictionary = next;
+                    }
+                    pendingChanges = null;
+                }
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // Returns the entity with the given name, creating it if the name is unknown
+    public <T> T resolveOrCreate(EntityType type, String name, Function<Long, Optional<T>> load,
+                                 Supplier<T> create, Function<T, Long> idOf) {
+        Optional<T> existing = resolve(type, name, load);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        return withCreationLock(type, name, () -> resolve(type, name, load)
+                .orElseGet(() -> created(type, name, create.get(), idOf)));
+    }
+
+    // Creates the entity unless the name is already taken, in which case nothing is created and empty is returned
+    public <T> Optional<T> createIfAbsent(EntityType type, String name, Function<Long, Optional<T>> load,
+                                          Supplier<T> create, Function<T, Long> idOf) {
+        return withCreationLock(type, name, () -> resolve(type, name, load).isPresent()
+                ? Optional.empty()
+                : Optional.of(created(type, name, create.get(), idOf)));
+    }
+
+    // Moves an entity to its new name once the surrounding transaction commits
+    public void rename(EntityType type, Long id, String oldName, String newName) {
+        TransactionHooks.afterCommit(() -> change(dictionary -> {
+            dictionary.names(type).remove(fold(oldName), id);
+            dictionary.names(type).put(fold(newName), id);
+        }));
+    }
+
+    // Forgets a deleted entity once the surrounding transaction commits
+    public void remove(EntityType type, Long id, String name) {
+        TransactionHooks.afterCommit(() -> change(dictionary -> dictionary.remove(type, name, id)));
+    }
+
+    // Takes over a change another instance made to an entity: its current name, or null if it was deleted
+    public void refresh(EntityType type, Long id, String name) {
+        change(dictionary -> {
+            if (name == null) {
+                dictionary.knownIds.get(type).remove(id);
+            } else {
+                // The new name is added before the old one goes, so the entity is never missing from the dictionary
+                dictionary.put(type, name, id);
+            }
+            dictionary.names(type).entrySet().removeIf(entry -> entry.getValue().equals(id) && !entry.getKey().equals(fold(name)));
+        });
+    }
+
+    // False only if no entity of the type has this ID
+    public boolean mayContainId(EntityType type, Long id) {
+        return id == null || dictionary.knownIds.get(type).contains(id);
+    }
+
+    // False only if no entity of the type has this name, compared case-insensitively
+    public boolean mayContainName(EntityType type, String name) {
+        return name == null || dictionary.names(type).containsKey(fold(name));
+    }
+
+    private static void load(Dictionary dictionary, EntityType type, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            dictionary.put(type, (String) row[1], (Long) row[0]);
+        }
+    }
+
+    // Applies a change to the dictionary and records it for a reload that is reading the database meanwhile
+    private void change(Consumer<Dictionary> change) {
+        synchronized (changeLock) {
+            change.accept(dictionary);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        }
+    }
+
+    // Looks the name up and loads the entity; an entry whose entity is gone was deleted concurrently and is dropped
+    private <T> Optional<T> resolve(EntityType type, String name, Function<Long, Optional<T>> load) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        Long id = dictionary.names(type).get(fold(name));
+        if (id == null) {
+            return Optional.empty();
+        }
+        Optional<T> entity = load.apply(id);
+        if (entity.isEmpty()) {
+            change(dictionary -> dictionary.remove(type, name, id));
+        }
+        return entity;
+    }
+
+    // Records a created entity while the creation lock is still held, so the next creator finds it
+    private <T> T created(EntityType type, String name, T entity, Function<T, Long> idOf) {
+        Long id = idOf.apply(entity);
+        change(dictionary -> dictionary.put(type, name, id));
+        return entity;
+    }
+
+    private <R> R withCreationLock(EntityType type, String name, Supplier<R> action) {
+        ReentrantLock lock = creationLocks[Math.floorMod((type + ":" + fold(name)).hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static String fold(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+}
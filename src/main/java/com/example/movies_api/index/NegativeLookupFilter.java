@@ -0,0 +1,46 @@
+package com.example.movies_api.index;
+
+import com.example.movies_api.entities.EntityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Tells lookups that can only miss apart before they reach the database: movie IDs from the filter index bitmap,
+// movie titles from its Bloom filter, genre and actor IDs and names from the name dictionary.
+// A false answer is definite; a true answer means the database has to be asked.
+// Rejected lookups are counted in movies.negative.lookups{entity}.
+@Component
+public class NegativeLookupFilter {
+
+    private final MovieFilterIndex movieFilterIndex;
+    private final NameDictionary nameDictionary;
+    private final Map<EntityType, Counter> rejected = new EnumMap<>(EntityType.class);
+
+    public NegativeLookupFilter(MovieFilterIndex movieFilterIndex, NameDictionary nameDictionary, MeterRegistry meterRegistry) {
+        this.movieFilterIndex = movieFilterIndex;
+        this.nameDictionary = nameDictionary;
+        for (EntityType type : EntityType.values()) {
+            rejected.put(type, meterRegistry.counter("movies.negative.lookups", "entity", type.name().toLowerCase()));
+        }
+    }
+
+    // False only if no entity of the type has this ID
+    public boolean mayExist(EntityType type, Long id) {
+        return counted(type, type == EntityType.MOVIE ? movieFilterIndex.mayContainMovie(id) : nameDictionary.mayContainId(type, id));
+    }
+
+    // False only if no entity of the type has this name: the exact title for movies, case-insensitive for genres and actors
+    public boolean mayExistByName(EntityType type, String name) {
+        return counted(type, type == EntityType.MOVIE ? movieFilterIndex.mayContainTitle(name) : nameDictionary.mayContainName(type, name));
+    }
+
+    private boolean counted(EntityType type, boolean mayExist) {
+        if (!mayExist) {
+            rejected.get(type).increment();
+        }
+        return mayExist;
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.movies_api.index;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.repository.MovieRepository;
+import com.example.movies_api.transaction.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// Precomputed "similar movies": the top-K movies with the most cast and genres in common with each movie,
+// measured by the Jaccard similarity of their sets of genre and actor ids.
+// Every movie gets a MinHash signature over those ids, cut into bands; movies sharing a band land in the same
+// LSH bucket and only they are compared exactly, so no lookup or update scans the whole catalogue.
+// Full rebuilds run in the background on a fork-join pool; adds, updates and deletes of movies only
+// recompute the neighbours of the movies that shared a bucket with the old or new version of the movie, once
+// the transaction that made the change commits.
+@Component
+public class SimilarMoviesIndex {
+    private static final Logger log = LoggerFactory.getLogger(SimilarMoviesIndex.class);
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    // Most similar first, lower ids first among equally similar movies
+    private static final Comparator<Neighbour> BY_SIMILARITY = Comparator.comparingDouble(Neighbour::similarity).reversed()
+            .thenComparingLong(Neighbour::movieId);
+
+    private final int bands;
+    private final int rowsPerBand;
+    private final int topK;
+    // One seed per MinHash function
+    private final long[] seeds;
+    private final ForkJoinPool pool;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Serializes full rebuilds (startup and restores)
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private State state = new State();
+    private boolean built;
+    // Movies changed while a rebuild was reading the database, applied again on top of its result;
+    // an empty feature array records a delete
+    private Map<Long, long[]> pendingChanges;
+
+    public record Neighbour(long movieId, double similarity) {
+    }
+
+    private static class State {
+        // Sorted genre and actor features of each movie
+        private final Map<Long, long[]> features = new HashMap<>();
+        // LSH bucket keys of each movie, one per band
+        private final Map<Long, long[]> bucketKeys = new HashMap<>();
+        private final Map<Long, RoaringBitmap> buckets = new HashMap<>();
+        private final Map<Long, List<Neighbour>> neighbours = new HashMap<>();
+    }
+
+    public SimilarMoviesIndex(@Value("${movies.similar.hashes:64}") int hashes,
+                              @Value("${movies.similar.bands:16}") int bands,
+                              @Value("${movies.similar.top-k:10}") int topK,
+                              @Value("${movies.similar.parallelism:0}") int parallelism) {
+        if (bands <= 0 || hashes % bands != 0) {
+            throw new IllegalArgumentException("movies.similar.hashes must be a multiple of movies.similar.bands");
+        }
+        this.bands = bands;
+        this.rowsPerBand = hashes / bands;
+        this.topK = topK;
+        SplittableRandom random = new SplittableRandom(0x5EED);
+        this.seeds = random.longs(hashes).toArray();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Builds the index in the background once the application has started; until then lookups return nothing
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleRebuild() {
+        pool.execute(this::rebuild);
+    }
+
+    // Rebuilds the whole index from the database
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = new LinkedHashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long start = System.nanoTime();
+            Map<Long, Set<Long>> genres = new HashMap<>();
+            Map<Long, Set<Long>> actors = new HashMap<>();
+            for (Object[] row : movieRepository.findAllMovieGenrePairs()) {
+                genres.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+            }
+            for (Object[] row : movieRepository.findAllMovieActorPairs()) {
+                actors.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+            }
+            Map<Long, long[]> features = new HashMap<>();
+            for (Object[] row : movieRepository.findAllMovieIdsAndReleaseYears()) {
+                Long movieId = (Long) row[0];
+                features.put(movieId, features(genres.getOrDefault(movieId, Set.of()), actors.getOrDefault(movieId, Set.of())));
+            }
+            rebuild(features);
+            log.info("Built similar movies index for {} movies in {} ms", features.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Builds the index for the given movie features, then applies the changes made since the rebuild started
+    void rebuild(Map<Long, long[]> features) {
+        State next = new State();
+        // Signatures and neighbour lists are computed in parallel; the buckets are filled in between
+        Map<Long, long[]> keys = pool.submit(() -> features.entrySet().parallelStream()
+                .filter(entry -> entry.getValue().length > 0)
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> bucketKeys(entry.getValue())))).join();
+        keys.forEach((movieId, movieKeys) -> {
+            next.features.put(movieId, features.get(movieId));
+            next.bucketKeys.put(movieId, movieKeys);
+            addToBuckets(next, movieId, movieKeys);
+        });
+        Map<Long, List<Neighbour>> neighbours = pool.submit(() -> keys.keySet().parallelStream()
+                .collect(Collectors.toMap(movieId -> movieId, movieId -> nearest(next, movieId)))).join();
+        next.neighbours.putAll(neighbours);
+        lock.writeLock().lock();
+        try {
+            state = next;
+            built = true;
+            if (pendingChanges != null) {
+                pendingChanges.forEach(this::update);
+                pendingChanges = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Indexes a newly saved movie or re-indexes an updated one
+    public void put(Movie movie) {
+        Set<Long> genreIds = new HashSet<>();
+        for (Genre genre : movie.getGenreSet()) {
+            genreIds.add(genre.getGenreId());
+        }
+        Set<Long> actorIds = new HashSet<>();
+        for (Actor actor : movie.getActorSet()) {
+            actorIds.add(actor.getActorId());
+        }
+        Long movieId = movie.getMovieId();
+        long[] features = features(genreIds, actorIds);
+        TransactionHooks.afterCommit(() -> change(movieId, features));
+    }
+
+    // Removes a deleted movie and recomputes the neighbours of the movies it was similar to
+    public void removeMovie(Long movieId) {
+        TransactionHooks.afterCommit(() -> change(movieId, new long[0]));
+    }
+
+    // Drops a deleted genre from the movies that had it
+    public void removeGenre(Long genreId) {
+        TransactionHooks.afterCommit(() -> removeFeature(genreFeature(genreId)));
+    }
+
+    // Drops a deleted actor from the movies they played in
+    public void removeActor(Long actorId) {
+        TransactionHooks.afterCommit(() -> removeFeature(actorFeature(actorId)));
+    }
+
+    // The most similar movies, most similar first; empty until the index is first built
+    public List<Neighbour> similarTo(Long movieId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Neighbour> neighbours = state.neighbours.getOrDefault(movieId, List.of());
+            return List.copyOf(neighbours.subList(0, Math.min(Math.max(limit, 0), neighbours.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isBuilt() {
+        lock.readLock().lock();
+        try {
+            return built;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void removeFeature(long feature) {
+        lock.writeLock().lock();
+        try {
+            List<Long> affected = new ArrayList<>();
+            state.features.forEach((movieId, features) -> {
+                if (Arrays.binarySearch(features, feature) >= 0) {
+                    affected.add(movieId);
+                }
+            });
+            for (Long movieId : affected) {
+                long[] features = state.features.get(movieId);
+                int index = Arrays.binarySearch(features, feature);
+                long[] remaining = new long[features.length - 1];
+                System.arraycopy(features, 0, remaining, 0, index);
+                System.arraycopy(features, index + 1, remaining, index, features.length - index - 1);
+                change(movieId, remaining);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void change(Long movieId, long[] features) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.put(movieId, features);
+            }
+            update(movieId, features);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Replaces the features of one movie and recomputes the neighbours of every movie that shared a bucket
+    // with its old or its new signature. Called with the write lock held.
+    private void update(Long movieId, long[] features) {
+        RoaringBitmap affected = new RoaringBitmap();
+        long[] oldKeys = state.bucketKeys.remove(movieId);
+        if (oldKeys != null) {
+            affected.or(candidates(state, oldKeys));
+            removeFromBuckets(state, movieId, oldKeys);
+        }
+        state.features.remove(movieId);
+        state.neighbours.remove(movieId);
+        if (features.length > 0) {
+            long[] newKeys = bucketKeys(features);
+            state.features.put(movieId, features);
+            state.bucketKeys.put(movieId, newKeys);
+            addToBuckets(state, movieId, newKeys);
+            affected.or(candidates(state, newKeys));
+        }
+        affected.remove(Math.toIntExact(movieId));
+        if (features.length > 0) {
+            state.neighbours.put(movieId, nearest(state, movieId));
+        }
+        affected.forEach((int id) -> state.neighbours.put((long) id, nearest(state, (long) id)));
+    }
+
+    // The topK movies sharing a bucket with the movie, by exact Jaccard similarity
+    private List<Neighbour> nearest(State state, Long movieId) {
+        long[] features = state.features.get(movieId);
+        RoaringBitmap candidates = candidates(state, state.bucketKeys.get(movieId));
+        candidates.remove(Math.toIntExact(movieId));
+        PriorityQueue<Neighbour> best = new PriorityQueue<>(BY_SIMILARITY.reversed());
+        candidates.forEach((int id) -> {
+            double similarity = jaccard(features, state.features.get((long) id));
+            if (similarity > 0) {
+                best.add(new Neighbour(id, similarity));
+                if (best.size() > topK) {
+                    best.poll();
+                }
+            }
+        });
+        List<Neighbour> neighbours = new ArrayList<>(best);
+        neighbours.sort(BY_SIMILARITY);
+        return neighbours;
+    }
+
+    private static RoaringBitmap candidates(State state, long[] keys) {
+        RoaringBitmap candidates = new RoaringBitmap();
+        for (long key : keys) {
+            RoaringBitmap bucket = state.buckets.get(key);
+            if (bucket != null) {
+                candidates.or(bucket);
+            }
+        }
+        return candidates;
+    }
+
+    private static void addToBuckets(State state, Long movieId, long[] keys) {
+        for (long key : keys) {
+            state.buckets.computeIfAbsent(key, k -> new RoaringBitmap()).add(Math.toIntExact(movieId));
+        }
+    }
+
+    private static void removeFromBuckets(State state, Long movieId, long[] keys) {
+        for (long key : keys) {
+            RoaringBitmap bucket = state.buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(Math.toIntExact(movieId));
+                if (bucket.isEmpty()) {
+                    state.buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    // MinHash signature of the features, hashed band by band into one bucket key per band
+    long[] bucketKeys(long[] features) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rowsPerBand; row++) {
+                long seed = seeds[band * rowsPerBand + row];
+                long min = Long.MAX_VALUE;
+                for (long feature : features) {
+                    min = Math.min(min, mix(feature ^ seed));
+                }
+                key = key * 31 + min;
+            }
+            keys[band] = mix(key);
+        }
+        return keys;
+    }
+
+    // Jaccard similarity of two sorted feature arrays
+    static double jaccard(long[] a, long[] b) {
+        int common = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - common;
+        return union == 0 ? 0 : (double) common / union;
+    }
+
+    // Genre and actor ids as one sorted set of features; the lowest bit tells genres and actors apart
+    static long[] features(Collection<Long> genreIds, Collection<Long> actorIds) {
+        long[] features = new long[genreIds.size() + actorIds.size()];
+        int i = 0;
+        for (Long genreId : genreIds) {
+            features[i++] = genreFeature(genreId);
+        }
+        for (Long actorId : actorIds) {
+            features[i++] = actorFeature(actorId);
+        }
+        Arrays.sort(features);
+        return features;
+    }
+
+    private static long genreFeature(long genreId) {
+        return genreId << 1;
+    }
+
+    private static long actorFeature(long actorId) {
+        return actorId << 1 | 1;
+    }
+
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
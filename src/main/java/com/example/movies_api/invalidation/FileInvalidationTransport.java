@@ -0,0 +1,106 @@
+package com.example.movies_api.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Exchanges messages through a log file shared by all instances, e.g. next to a shared database.
+// Each message is appended as one length-prefixed frame with a single append write, so frames of concurrent
+// writers never interleave; every instance tails the file from where it was when it started.
+// The file only grows; it can be deleted while no instance runs, and readers treat a shrinking file as lost messages.
+public class FileInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(FileInvalidationTransport.class);
+    private static final int MAX_FRAME_SIZE = 1 << 20;
+
+    private final Path file;
+    private final Duration pollInterval;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invalidation-file-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private FileChannel writer;
+    // Offset of the first frame not read yet, only used by the poller thread
+    private long position;
+
+    public FileInvalidationTransport(Path file, Duration pollInterval) {
+        this.file = file;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public void start(Receiver receiver) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        writer = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        position = writer.size();
+        poller.scheduleWithFixedDelay(() -> poll(receiver), pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void send(byte[] message) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + message.length).putInt(message.length).put(message).flip();
+        while (frame.hasRemaining()) {
+            writer.write(frame);
+        }
+    }
+
+    // Hands every complete frame appended since the last poll to the receiver
+    private void poll(Receiver receiver) {
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = reader.size();
+            if (size < position) {
+                position = 0;
+                receiver.lost("invalidation log " + file + " was truncated");
+            }
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            while (size - position >= Integer.BYTES) {
+                readFully(reader, header.clear(), position);
+                int length = header.flip().getInt();
+                if (length < 0 || length > MAX_FRAME_SIZE) {
+                    // Not a frame boundary, so nothing after it can be trusted
+                    position = size;
+                    receiver.lost("corrupt frame in invalidation log " + file);
+                    return;
+                }
+                if (size - position - Integer.BYTES < length) {
+                    // The writer has not finished this frame yet
+                    return;
+                }
+                ByteBuffer message = ByteBuffer.allocate(length);
+                readFully(reader, message, position + Integer.BYTES);
+                position += Integer.BYTES + length;
+                receiver.received(message.array());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read invalidation log {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        poller.shutdownNow();
+        if (writer != null) {
+            writer.close();
+        }
+    }
+}
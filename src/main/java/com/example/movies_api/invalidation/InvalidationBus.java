@@ -0,0 +1,351 @@
+package com.example.movies_api.invalidation;
+
+import com.example.movies_api.cache.ChangeTracker;
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.EntityType;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.index.MovieFilterIndex;
+import com.example.movies_api.index.NameDictionary;
+import com.example.movies_api.index.SimilarMoviesIndex;
+import com.example.movies_api.repository.ActorRepository;
+import com.example.movies_api.repository.GenreRepository;
+import com.example.movies_api.repository.MovieRepository;
+import com.example.movies_api.service.BackupService;
+import com.example.movies_api.service.CatalogueEventService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the in-memory state of instances that share one database coherent: the second-level cache, the
+// ChangeTracker stamps behind ETags and the response cache, the name dictionary and the movie indexes.
+// Committed changes are collected per entity, deduplicated and sent as one message per batch interval over the
+// configured transport. Receivers drop and reload only the changed entities. Every message carries the next
+// number of the sender's sequence, and idle senders repeat their latest one as a heartbeat, so a receiver that
+// sees a number skipped knows it missed changes and reloads everything instead.
+// Disabled (publishing does nothing) unless movies.invalidation.transport is set or a transport bean is declared.
+@Component
+@EnableConfigurationProperties(InvalidationProperties.class)
+public class InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+    // Keeps the largest message within one UDP datagram
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final String GENRE_MOVIES = Genre.class.getName() + ".movieSet";
+    private static final String ACTOR_MOVIES = Actor.class.getName() + ".movieSet";
+
+    private final InvalidationProperties properties;
+    private final InvalidationTransport transport;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ChangeTracker changeTracker;
+    private final NameDictionary nameDictionary;
+    private final MovieFilterIndex movieFilterIndex;
+    private final SimilarMoviesIndex similarMoviesIndex;
+    private final MovieRepository movieRepository;
+    private final GenreRepository genreRepository;
+    private final ActorRepository actorRepository;
+    // Resolved lazily: both of them publish through this bus
+    private final ObjectProvider<BackupService> backupService;
+    private final ObjectProvider<CatalogueEventService> catalogueEventService;
+
+    // Identifies this instance in its messages; a restarted instance starts a new sequence under a new id
+    private final UUID node = UUID.randomUUID();
+    // Changes waiting for the next batch, one entry per entity and per changed movie list
+    private final Set<InvalidationMessage.Entry> pending = new LinkedHashSet<>();
+    private boolean flushPending;
+    // Number of the latest message sent, and when; guarded by pending like the batch
+    private long sequence;
+    private long lastSentNanos = System.nanoTime();
+    // Number of the latest message received from each other instance
+    private final Map<UUID, Long> received = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invalidation-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter sentMessages;
+    private final Counter receivedMessages;
+    private final Counter deduplicated;
+    private final Counter fullFlushes;
+
+    public InvalidationBus(InvalidationProperties properties, ObjectProvider<InvalidationTransport> customTransport,
+                           EntityManagerFactory entityManagerFactory, ChangeTracker changeTracker,
+                           NameDictionary nameDictionary, MovieFilterIndex movieFilterIndex,
+                           SimilarMoviesIndex similarMoviesIndex, MovieRepository movieRepository,
+                           GenreRepository genreRepository, ActorRepository actorRepository,
+                           ObjectProvider<BackupService> backupService,
+                           ObjectProvider<CatalogueEventService> catalogueEventService, MeterRegistry meterRegistry) {
+        if (properties.maxBatchSize() < 1 || properties.maxBatchSize() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("movies.invalidation.max-batch-size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        this.properties = properties;
+        this.transport = customTransport.getIfAvailable(() -> switch (properties.transport()) {
+            case NONE -> null;
+            case FILE -> new FileInvalidationTransport(properties.file(), properties.pollInterval());
+            case MULTICAST -> new MulticastInvalidationTransport(properties.multicastGroup(), properties.multicastPort(),
+                    properties.multicastTtl(), properties.multicastInterface());
+        });
+        this.entityManagerFactory = entityManagerFactory;
+        this.changeTracker = changeTracker;
+        this.nameDictionary = nameDictionary;
+        this.movieFilterIndex = movieFilterIndex;
+        this.similarMoviesIndex = similarMoviesIndex;
+        this.movieRepository = movieRepository;
+        this.genreRepository = genreRepository;
+        this.actorRepository = actorRepository;
+        this.backupService = backupService;
+        this.catalogueEventService = catalogueEventService;
+        this.sentMessages = meterRegistry.counter("movies.invalidation.messages", "direction", "sent");
+        this.receivedMessages = meterRegistry.counter("movies.invalidation.messages", "direction", "received");
+        this.deduplicated = meterRegistry.counter("movies.invalidation.deduplicated");
+        this.fullFlushes = meterRegistry.counter("movies.invalidation.full.flushes");
+    }
+
+    public boolean isEnabled() {
+        return transport != null;
+    }
+
+    // Starts listening before the indexes are first built, so no change committed meanwhile is missed
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        transport.start(new InvalidationTransport.Receiver() {
+            @Override
+            public void received(byte[] message) {
+                receive(message);
+            }
+
+            @Override
+            public void lost(String reason) {
+                reloadAll(reason);
+            }
+        });
+        long interval = properties.batchInterval().toMillis();
+        sender.scheduleWithFixedDelay(this::send, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Invalidation bus started as node {} over {}", node, transport.getClass().getSimpleName());
+    }
+
+    // Queues a committed change of an entity for the next batch, along with the movie lists that changed with it
+    public void publish(EntityType entityType, Long entityId, MovieLists lists) {
+        if (!isEnabled() || entityId == null) {
+            return;
+        }
+        boolean full;
+        synchronized (pending) {
+            queue(new InvalidationMessage.Entry(entityType, entityId));
+            lists.genreIds().forEach(genreId -> queue(new InvalidationMessage.Entry(EntityType.GENRE, genreId, true)));
+            lists.actorIds().forEach(actorId -> queue(new InvalidationMessage.Entry(EntityType.ACTOR, actorId, true)));
+            full = pending.size() >= properties.maxBatchSize();
+        }
+        if (full) {
+            sender.execute(this::send);
+        }
+    }
+
+    private void queue(InvalidationMessage.Entry entry) {
+        if (!pending.add(entry)) {
+            deduplicated.increment();
+        }
+    }
+
+    // Asks every other instance to drop all of its cached state, e.g. after the shared database was restored
+    public void publishFlush() {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (pending) {
+            flushPending = true;
+        }
+        sender.execute(this::send);
+    }
+
+    // Sends the pending changes as one message, or a heartbeat if nothing was sent for a while
+    private void send() {
+        InvalidationMessage message;
+        synchronized (pending) {
+            if (flushPending) {
+                // A flush supersedes the individual changes
+                message = new InvalidationMessage(node, ++sequence, true, List.of());
+                pending.clear();
+                flushPending = false;
+            } else if (!pending.isEmpty()) {
+                List<InvalidationMessage.Entry> entries = new ArrayList<>(Math.min(pending.size(), properties.maxBatchSize()));
+                var iterator = pending.iterator();
+                while (iterator.hasNext() && entries.size() < properties.maxBatchSize()) {
+                    entries.add(iterator.next());
+                    iterator.remove();
+                }
+                message = new InvalidationMessage(node, ++sequence, false, entries);
+            } else if (System.nanoTime() - lastSentNanos >= properties.heartbeatInterval().toNanos()) {
+                message = InvalidationMessage.heartbeat(node, sequence);
+            } else {
+                return;
+            }
+        }
+        lastSentNanos = System.nanoTime();
+        try {
+            transport.send(message.encode());
+            sentMessages.increment();
+        } catch (IOException | RuntimeException e) {
+            // The number of the lost message is skipped, so the receivers reload everything once the next one arrives
+            log.warn("Could not send invalidation message {}: {}", message.sequence(), e.getMessage());
+        }
+    }
+
+    // Applies a message from another instance, or reloads everything if messages from it were missed
+    void receive(byte[] bytes) {
+        InvalidationMessage message;
+        try {
+            message = InvalidationMessage.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            reloadAll(e.getMessage());
+            return;
+        }
+        if (message.node().equals(node)) {
+            return;
+        }
+        receivedMessages.increment();
+        Long last = received.get(message.node());
+        if (last != null && message.sequence() <= last) {
+            // A duplicate, or a heartbeat with nothing new
+            return;
+        }
+        received.put(message.node(), message.sequence());
+        // The first message of an instance is its baseline; after that a heartbeat must repeat the last number
+        // and a batch must carry the next one
+        boolean missed = last != null && message.sequence() > last + (message.isHeartbeat() ? 0 : 1);
+        if (missed) {
+            reloadAll("missed messages " + (last + 1) + " to " + (message.sequence() - 1) + " of node " + message.node());
+        } else if (message.flush()) {
+            reloadAll("flush requested by node " + message.node());
+        } else if (!message.isHeartbeat()) {
+            try {
+                apply(message.entries());
+            } catch (RuntimeException e) {
+                reloadAll("could not apply changes of node " + message.node() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Drops and reloads what this instance keeps about the changed entities
+    private void apply(List<InvalidationMessage.Entry> entries) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        List<Long> movieIds = new ArrayList<>();
+        for (InvalidationMessage.Entry entry : entries) {
+            long id = entry.entityId();
+            if (entry.movieList()) {
+                cache.evictCollectionData(entry.entityType() == EntityType.GENRE ? GENRE_MOVIES : ACTOR_MOVIES, id);
+                continue;
+            }
+            switch (entry.entityType()) {
+                case MOVIE -> movieIds.add(id);
+                case GENRE -> {
+                    cache.evictEntityData(Genre.class, id);
+                    cache.evictCollectionData(GENRE_MOVIES, id);
+                    cache.evictNaturalIdData(Genre.class);
+                    Optional<Genre> genre = genreRepository.findById(id);
+                    nameDictionary.refresh(EntityType.GENRE, id, genre.map(Genre::getGenreName).orElse(null));
+                    if (genre.isEmpty()) {
+                        movieFilterIndex.removeGenre(id);
+                        similarMoviesIndex.removeGenre(id);
+                    }
+                }
+                case ACTOR -> {
+                    cache.evictEntityData(Actor.class, id);
+                    cache.evictCollectionData(ACTOR_MOVIES, id);
+                    cache.evictNaturalIdData(Actor.class);
+                    Optional<Actor> actor = actorRepository.findById(id);
+                    nameDictionary.refresh(EntityType.ACTOR, id, actor.map(Actor::getActorName).orElse(null));
+                    if (actor.isEmpty()) {
+                        movieFilterIndex.removeActor(id);
+                        similarMoviesIndex.removeActor(id);
+                    }
+                }
+            }
+        }
+        if (!movieIds.isEmpty()) {
+            Map<Long, Movie> movies = new LinkedHashMap<>();
+            movieRepository.findAllWithGenresAndActorsByMovieIdIn(movieIds).forEach(movie -> movies.put(movie.getMovieId(), movie));
+            for (Long movieId : movieIds) {
+                Movie movie = movies.get(movieId);
+                if (movie != null) {
+                    movieFilterIndex.put(movie);
+                    similarMoviesIndex.put(movie);
+                } else {
+                    movieFilterIndex.removeMovie(movieId);
+                    similarMoviesIndex.removeMovie(movieId);
+                }
+            }
+        }
+        cache.evictDefaultQueryRegion();
+        cache.evictQueryRegions();
+        // Stamped last, so a validator handed out for the new stamps is never served from the old caches.
+        // Each stamp moves the entity's list stamp too, as on the instance that made the change.
+        for (InvalidationMessage.Entry entry : entries) {
+            if (!entry.movieList()) {
+                changeTracker.recordChange(entry.entityType(), entry.entityId());
+            }
+        }
+        // Their catalogue events are in the shared outbox already
+        catalogueEventService.getObject().signalNewEvents();
+    }
+
+    private void reloadAll(String reason) {
+        log.warn("Reloading all cached state: {}", reason);
+        fullFlushes.increment();
+        try {
+            backupService.getObject().reloadCaches();
+        } catch (RuntimeException e) {
+            log.error("Could not reload cached state", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!isEnabled()) {
+            return;
+        }
+        sender.shutdown();
+        try {
+            // Whatever is still pending goes out before the transport closes
+            if (sender.awaitTermination(5, TimeUnit.SECONDS)) {
+                send();
+            }
+            transport.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Could not close invalidation transport: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.movies_api.invalidation;
+
+import com.example.movies_api.entities.EntityType;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// One batch of changes sent by an instance. Every batch carries the next number of the sender's sequence;
+// heartbeats repeat the latest number without entries, and flush messages ask every receiver to drop everything.
+// Binary layout: format, flags, sender id, sequence, entry count, then per entry the entity type and its id
+// (9 bytes per entry). Receivers move the list stamp of the entity's type along with the entity itself.
+// List entries set the high bit of the type: they name a genre or actor whose movie list changed with a movie.
+public record InvalidationMessage(UUID node, long sequence, boolean flush, List<Entry> entries) {
+
+    private static final byte FORMAT = 1;
+    private static final byte FLUSH = 1;
+    private static final int MOVIE_LIST = 0x80;
+    private static final int HEADER_SIZE = 1 + 1 + 16 + 8 + 4;
+    private static final int ENTRY_SIZE = 1 + 8;
+
+    // A changed entity, or with movieList set the movie list of a genre or actor
+    public record Entry(EntityType entityType, long entityId, boolean movieList) {
+
+        public Entry(EntityType entityType, long entityId) {
+            this(entityType, entityId, false);
+        }
+    }
+
+    public static InvalidationMessage heartbeat(UUID node, long sequence) {
+        return new InvalidationMessage(node, sequence, false, List.of());
+    }
+
+    public boolean isHeartbeat() {
+        return !flush && entries.isEmpty();
+    }
+
+    public static int size(int entries) {
+        return HEADER_SIZE + entries * ENTRY_SIZE;
+    }
+
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(size(entries.size()))
+                .put(FORMAT)
+                .put(flush ? FLUSH : 0)
+                .putLong(node.getMostSignificantBits())
+                .putLong(node.getLeastSignificantBits())
+                .putLong(sequence)
+                .putInt(entries.size());
+        for (Entry entry : entries) {
+            buffer.put((byte) (entry.entityType().ordinal() | (entry.movieList() ? MOVIE_LIST : 0))).putLong(entry.entityId());
+        }
+        return buffer.array();
+    }
+
+    public static InvalidationMessage decode(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (buffer.get() != FORMAT) {
+                throw new IllegalArgumentException("Unsupported invalidation message format");
+            }
+            boolean flush = (buffer.get() & FLUSH) != 0;
+            UUID node = new UUID(buffer.getLong(), buffer.getLong());
+            long sequence = buffer.getLong();
+            int count = buffer.getInt();
+            if (count < 0 || bytes.length != size(count)) {
+                throw new IllegalArgumentException("Invalidation message of " + bytes.length + " bytes cannot hold " + count + " entries");
+            }
+            EntityType[] types = EntityType.values();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int type = buffer.get() & 0xFF;
+                Entry entry = new Entry(types[type & ~MOVIE_LIST], buffer.getLong(), (type & MOVIE_LIST) != 0);
+                if (entry.movieList() && entry.entityType() == EntityType.MOVIE) {
+                    throw new IllegalArgumentException("Movies have no movie list");
+                }
+                entries.add(entry);
+            }
+            return new InvalidationMessage(node, sequence, flush, entries);
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt invalidation message", e);
+        }
+    }
+}
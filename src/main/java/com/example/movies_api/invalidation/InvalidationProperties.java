@@ -0,0 +1,34 @@
+package com.example.movies_api.invalidation;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Settings of the cross-instance invalidation bus (movies.invalidation.* in application.properties)
+@ConfigurationProperties(prefix = "movies.invalidation")
+public record InvalidationProperties(
+        @DefaultValue("none") Transport transport,
+        // How long changes are collected before they are sent as one message
+        @DefaultValue("50ms") Duration batchInterval,
+        // Largest number of changed entities in one message; a full batch is sent right away
+        @DefaultValue("256") int maxBatchSize,
+        // How often an idle instance repeats its latest sequence number, so others notice a lost last message
+        @DefaultValue("5s") Duration heartbeatInterval,
+        // Log file shared by all instances with the file transport
+        @DefaultValue("invalidation/invalidations.log") Path file,
+        // How often the file transport looks for messages appended by other instances
+        @DefaultValue("100ms") Duration pollInterval,
+        // Multicast group, port, time-to-live and network interface (default interface if empty) of the multicast transport
+        @DefaultValue("239.255.27.1") String multicastGroup,
+        @DefaultValue("4446") int multicastPort,
+        @DefaultValue("1") int multicastTtl,
+        String multicastInterface) {
+
+    public enum Transport {
+        NONE,
+        FILE,
+        MULTICAST
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.movies_api.invalidation;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Carries encoded invalidation messages between instances. Messages may be lost or duplicated but must arrive
+// whole; the bus detects losses from the sequence numbers. Declaring a bean of this type replaces the transport
+// selected by movies.invalidation.transport.
+public interface InvalidationTransport extends Closeable {
+
+    // Called on the transport's own thread, one message at a time
+    interface Receiver {
+        void received(byte[] message);
+
+        // Messages may have been lost, e.g. because the shared log was truncated
+        void lost(String reason);
+    }
+
+    void start(Receiver receiver) throws IOException;
+
+    void send(byte[] message) throws IOException;
+}
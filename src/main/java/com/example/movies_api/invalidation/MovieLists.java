@@ -0,0 +1,34 @@
+package com.example.movies_api.invalidation;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// The genres and actors whose movie lists (Genre.movieSet, Actor.movieSet) changed with a movie write
+public record MovieLists(Set<Long> genreIds, Set<Long> actorIds) {
+
+    public static final MovieLists NONE = new MovieLists(Set.of(), Set.of());
+
+    // The saved genres and actors of a movie as it is now
+    public static MovieLists of(Movie movie) {
+        return new MovieLists(movie.getGenreSet().stream().map(Genre::getGenreId).filter(Objects::nonNull).collect(Collectors.toSet()),
+                movie.getActorSet().stream().map(Actor::getActorId).filter(Objects::nonNull).collect(Collectors.toSet()));
+    }
+
+    // The genres and actors the movie was added to or removed from between the two states
+    public static MovieLists changed(MovieLists before, MovieLists after) {
+        return new MovieLists(difference(before.genreIds(), after.genreIds()), difference(before.actorIds(), after.actorIds()));
+    }
+
+    private static Set<Long> difference(Set<Long> before, Set<Long> after) {
+        Set<Long> changed = new HashSet<>(before);
+        changed.addAll(after);
+        changed.removeIf(id -> before.contains(id) && after.contains(id));
+        return changed;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.movies_api.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.util.Arrays;
+
+// Sends every message as one UDP datagram to a multicast group that all instances join. Loopback is enabled,
+// so several instances on one machine receive each other's messages. Datagrams may be lost or reordered;
+// the sequence numbers in the messages tell the bus when that happened.
+public class MulticastInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(MulticastInvalidationTransport.class);
+    // Largest UDP payload over IPv4
+    public static final int MAX_DATAGRAM_SIZE = 65_507;
+
+    private final InetSocketAddress group;
+    private final int ttl;
+    private final String interfaceName;
+    private MulticastSocket socket;
+    private NetworkInterface networkInterface;
+
+    public MulticastInvalidationTransport(String group, int port, int ttl, String interfaceName) {
+        this.group = new InetSocketAddress(group, port);
+        this.ttl = ttl;
+        this.interfaceName = interfaceName;
+    }
+
+    @Override
+    public void start(Receiver receiver) throws IOException {
+        if (group.isUnresolved() || !group.getAddress().isMulticastAddress()) {
+            throw new IllegalArgumentException(group.getHostString() + " is not a multicast address");
+        }
+        socket = new MulticastSocket(group.getPort());
+        socket.setTimeToLive(ttl);
+        socket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+        if (interfaceName != null && !interfaceName.isBlank()) {
+            networkInterface = NetworkInterface.getByName(interfaceName);
+            if (networkInterface == null) {
+                throw new IllegalArgumentException("No network interface named " + interfaceName);
+            }
+            socket.setNetworkInterface(networkInterface);
+        }
+        socket.joinGroup(group, networkInterface);
+        Thread thread = new Thread(() -> receive(receiver), "invalidation-multicast-receiver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void send(byte[] message) throws IOException {
+        if (message.length > MAX_DATAGRAM_SIZE) {
+            throw new IOException("Invalidation message of " + message.length + " bytes does not fit in a datagram");
+        }
+        socket.send(new DatagramPacket(message, message.length, group));
+    }
+
+    private void receive(Receiver receiver) {
+        byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!socket.isClosed()) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                receiver.received(Arrays.copyOf(buffer, packet.getLength()));
+            } catch (SocketException e) {
+                // Closed on shutdown
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not receive invalidation message: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (socket != null) {
+            try {
+                socket.leaveGroup(group, networkInterface);
+            } catch (IOException e) {
+                // Closing the socket leaves the group as well
+            }
+            socket.close();
+        }
+    }
+}
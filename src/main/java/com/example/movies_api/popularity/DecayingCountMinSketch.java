@@ -0,0 +1,92 @@
+package com.example.movies_api.popularity;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Count-min sketch split into time windows: hits go to the current window, and estimates add up all windows
+// with older ones weighted down by a decay factor per window of age, so a burst of reads fades out over time.
+// Increments are lock-free atomic adds; estimates may overcount (hash collisions), never undercount.
+class DecayingCountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final double decay;
+    // Ring of windows, each depth rows of width counters
+    private final AtomicLongArray[] windows;
+    private volatile int current;
+
+    DecayingCountMinSketch(int width, int depth, int windowCount, double decay) {
+        this.width = width;
+        this.depth = depth;
+        this.decay = decay;
+        this.windows = new AtomicLongArray[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            windows[i] = new AtomicLongArray(width * depth);
+        }
+    }
+
+    void increment(long key) {
+        AtomicLongArray window = windows[current];
+        long hash = mix(key);
+        for (int row = 0; row < depth; row++) {
+            window.incrementAndGet(index(hash, row));
+        }
+    }
+
+    // Decayed number of hits over all windows
+    double estimate(long key) {
+        long hash = mix(key);
+        double estimate = 0;
+        double weight = 1;
+        int window = current;
+        for (int age = 0; age < windows.length; age++) {
+            estimate += weight * windowEstimate(windows[window], hash);
+            weight *= decay;
+            window = window == 0 ? windows.length - 1 : window - 1;
+        }
+        return estimate;
+    }
+
+    // Starts a new window, dropping the oldest one. Only called from one thread at a time; hits racing with it
+    // may still land in the previous window.
+    void rotate() {
+        int next = (current + 1) % windows.length;
+        AtomicLongArray window = windows[next];
+        for (int i = 0; i < window.length(); i++) {
+            window.set(i, 0);
+        }
+        current = next;
+    }
+
+    // Adds hits to the current window, used to restore persisted scores
+    void add(long key, long hits) {
+        AtomicLongArray window = windows[current];
+        long hash = mix(key);
+        for (int row = 0; row < depth; row++) {
+            window.addAndGet(index(hash, row), hits);
+        }
+    }
+
+    private long windowEstimate(AtomicLongArray window, long hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, window.get(index(hash, row)));
+        }
+        return min;
+    }
+
+    // Double hashing: the column of each row is derived from the two halves of one 64-bit hash
+    private int index(long hash, int row) {
+        int combined = (int) hash + row * (int) (hash >>> 32);
+        return row * width + Math.floorMod(combined, width);
+    }
+
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
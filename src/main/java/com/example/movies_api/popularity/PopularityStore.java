@@ -0,0 +1,143 @@
+package com.example.movies_api.popularity;
+
+import com.example.movies_api.entities.EntityPopularity;
+import com.example.movies_api.entities.EntityType;
+import com.example.movies_api.repository.ActorRepository;
+import com.example.movies_api.repository.EntityPopularityRepository;
+import com.example.movies_api.repository.GenreRepository;
+import com.example.movies_api.repository.MovieRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Persists the top popularity scores and uses them to warm up the caches after a restart.
+// Flushes run on a single minimum-priority thread so they never compete with request threads for the CPU,
+// and write only the top entries of each type in one short transaction.
+@Component
+public class PopularityStore {
+    @Autowired
+    private PopularityTracker popularityTracker;
+    @Autowired
+    private EntityPopularityRepository entityPopularityRepository;
+    @Autowired
+    private MovieRepository movieRepository;
+    @Autowired
+    private ActorRepository actorRepository;
+    @Autowired
+    private GenreRepository genreRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final Logger log = LoggerFactory.getLogger(PopularityStore.class);
+
+    @Value("${movies.popularity.flush-interval:1m}")
+    private Duration flushInterval;
+    // Number of entries of each type written by a flush
+    @Value("${movies.popularity.flush-size:100}")
+    private int flushSize;
+    // Number of entries of each type loaded into the second-level cache at startup
+    @Value("${movies.popularity.prewarm-size:20}")
+    private int prewarmSize;
+    // Followers receive the table with the primary's snapshots and never write it
+    @Value("${movies.replication.role:standalone}")
+    private String replicationRole;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "popularity-flusher");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // Restores the persisted scores, pre-warms the caches with the most read entities and starts flushing
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            load();
+            prewarm();
+        } catch (DataAccessException e) {
+            // The table does not exist yet when the schema is not managed by Hibernate (fast-start profile)
+            log.warn("Could not restore popularity scores: {}", e.getMessage());
+        }
+        if (!"follower".equalsIgnoreCase(replicationRole)) {
+            long interval = flushInterval.toMillis();
+            flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Seeds the in-memory counters with the scores of the last flush
+    public void load() {
+        for (EntityType type : EntityType.values()) {
+            entityPopularityRepository.findByEntityTypeOrderByScoreDesc(type)
+                    .forEach(row -> popularityTracker.restore(type, row.getEntityId(), row.getScore()));
+        }
+    }
+
+    // Loads the most read movies with their genres and actors, and the most read actors and genres,
+    // into the second-level cache
+    public void prewarm() {
+        long start = System.currentTimeMillis();
+        List<Long> movieIds = topIds(EntityType.MOVIE, prewarmSize);
+        List<Long> actorIds = topIds(EntityType.ACTOR, prewarmSize);
+        List<Long> genreIds = topIds(EntityType.GENRE, prewarmSize);
+        if (!movieIds.isEmpty()) {
+            movieRepository.findAllWithGenresAndActorsByMovieIdIn(movieIds);
+        }
+        actorRepository.findAllById(actorIds);
+        genreRepository.findAllById(genreIds);
+        log.info("Pre-warmed {} movies, {} actors and {} genres in {} ms", movieIds.size(), actorIds.size(),
+                genreIds.size(), System.currentTimeMillis() - start);
+    }
+
+    // Replaces the persisted scores with the current top entries of each type
+    public void flush() {
+        String now = Instant.now().toString();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityPopularityRepository.deleteAllInBatch();
+                for (EntityType type : EntityType.values()) {
+                    for (PopularityTracker.Trending trending : popularityTracker.trending(type, flushSize)) {
+                        entityManager.persist(new EntityPopularity(type, trending.id(), trending.score(), now));
+                    }
+                }
+            });
+        } catch (DataAccessException e) {
+            // Most likely SQLITE_BUSY while a writer commits; the next flush writes newer scores anyway
+            log.warn("Could not flush popularity scores: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            // Keep the flush scheduled whatever went wrong
+            log.warn("Popularity flush failed", e);
+        }
+    }
+
+    private List<Long> topIds(EntityType type, int limit) {
+        return popularityTracker.trending(type, limit).stream().map(PopularityTracker.Trending::id).toList();
+    }
+
+    // Writes the latest scores before the application stops
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        if (!"follower".equalsIgnoreCase(replicationRole)) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.movies_api.popularity;
+
+import com.example.movies_api.entities.EntityType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Counts reads of movies, actors and genres in memory, without touching the database on the read path.
+// Each entity type has a striped total (LongAdder), a count-min sketch of per-id hits split into time windows
+// that decay with age, and a small set of heavy-hitter candidates: the ids whose estimate beat the weakest
+// candidate when they were read. Trending lists rank the candidates by their decayed estimates.
+@Component
+public class PopularityTracker {
+
+    private final Map<EntityType, HitCounter> counters = new EnumMap<>(EntityType.class);
+    private final TaskScheduler taskScheduler;
+    private final Duration window;
+    // Heavy-hitter candidates kept per entity type
+    private final int capacity;
+
+    public record Trending(long id, double score) {
+    }
+
+    private static class HitCounter {
+        private final EntityType type;
+        private final LongAdder hits = new LongAdder();
+        private final DecayingCountMinSketch sketch;
+        private final Set<Long> candidates = ConcurrentHashMap.newKeySet();
+        private final ReentrantLock pruneLock = new ReentrantLock();
+        // Estimate of the weakest candidate at the last prune; ids estimated above it become candidates
+        private volatile double threshold;
+
+        private HitCounter(EntityType type, DecayingCountMinSketch sketch) {
+            this.type = type;
+            this.sketch = sketch;
+        }
+    }
+
+    public PopularityTracker(TaskScheduler taskScheduler, MeterRegistry meterRegistry,
+                             @Value("${movies.popularity.window:5m}") Duration window,
+                             @Value("${movies.popularity.windows:12}") int windows,
+                             @Value("${movies.popularity.decay:0.7}") double decay,
+                             @Value("${movies.popularity.sketch-width:2048}") int sketchWidth,
+                             @Value("${movies.popularity.candidates:200}") int capacity) {
+        this.taskScheduler = taskScheduler;
+        this.window = window;
+        this.capacity = capacity;
+        for (EntityType type : EntityType.values()) {
+            HitCounter counter = new HitCounter(type, new DecayingCountMinSketch(sketchWidth, 4, windows, decay));
+            counters.put(type, counter);
+            FunctionCounter.builder("movies.popularity.hits", counter.hits, LongAdder::sum)
+                    .tag("entity", type.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    // Starts a new window every movies.popularity.window once the application is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        taskScheduler.scheduleWithFixedDelay(this::rotate, window);
+    }
+
+    // Counts one read of an entity
+    public void recordHit(EntityType type, Long id) {
+        if (id == null) {
+            return;
+        }
+        HitCounter counter = counters.get(type);
+        counter.hits.increment();
+        counter.sketch.increment(id);
+        if (!counter.candidates.contains(id)
+                && (counter.candidates.size() < capacity || counter.sketch.estimate(id) > counter.threshold)) {
+            counter.candidates.add(id);
+            if (counter.candidates.size() > 2 * capacity && counter.pruneLock.tryLock()) {
+                try {
+                    prune(counter);
+                } finally {
+                    counter.pruneLock.unlock();
+                }
+            }
+        }
+    }
+
+    // The most read entities of a type, highest decayed score first
+    public List<Trending> trending(EntityType type, int limit) {
+        HitCounter counter = counters.get(type);
+        PriorityQueue<Trending> best = new PriorityQueue<>(Comparator.comparingDouble(Trending::score));
+        for (Long id : counter.candidates) {
+            double score = counter.sketch.estimate(id);
+            // Candidates whose hits all aged out are no longer trending
+            if (score == 0) {
+                continue;
+            }
+            best.add(new Trending(id, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Trending> trending = new ArrayList<>(best);
+        trending.sort(Comparator.comparingDouble(Trending::score).reversed().thenComparingLong(Trending::id));
+        return trending;
+    }
+
+    // Adds a score persisted by an earlier run, so trending lists survive restarts
+    public void restore(EntityType type, long id, double score) {
+        HitCounter counter = counters.get(type);
+        counter.sketch.add(id, Math.round(score));
+        counter.candidates.add(id);
+    }
+
+    // Starts a new window and drops the candidates that fell out of the top
+    public void rotate() {
+        for (HitCounter counter : counters.values()) {
+            counter.pruneLock.lock();
+            try {
+                counter.sketch.rotate();
+                prune(counter);
+            } finally {
+                counter.pruneLock.unlock();
+            }
+        }
+    }
+
+    // Keeps the capacity candidates with the highest estimates. Called with the prune lock held.
+    private void prune(HitCounter counter) {
+        List<Trending> kept = trending(counter.type, capacity);
+        Set<Long> keptIds = new HashSet<>();
+        kept.forEach(trending -> keptIds.add(trending.id()));
+        counter.candidates.retainAll(keptIds);
+        counter.threshold = kept.size() < capacity ? 0 : kept.get(kept.size() - 1).score();
+    }
+}
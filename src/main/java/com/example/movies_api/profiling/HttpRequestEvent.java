@@ -0,0 +1,17 @@
+package com.example.movies_api.profiling;
+
+import jdk.jfr.*;
+
+// A request handled by a controller, from handler mapping to the completed response
+// (both dispatches of asynchronous requests)
+@Name("com.example.movies_api.HttpRequest")
+@Label("HTTP Request")
+@Category("Movies API")
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+    @Label("Endpoint")
+    @Description("HTTP method and matched mapping pattern, e.g. GET /api/movie/{movieId}")
+    public String endpoint;
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,68 @@
+package com.example.movies_api.profiling;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Custom Java Flight Recorder events attributing time to business operations: requests, service calls,
+// repository queries, transaction commits and response serialization (SerializationEvent, emitted by the
+// message converters of EncodingConfig). Every hook creates its event and returns straight away unless a
+// recording has it enabled, so outside recordings the cost is a proxy hop and a flag check per call.
+// Record with the bundled settings (src/main/resources/jfr/movies.jfc) and summarize with RecordingAnalyzer.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "movies.profiling", name = "jfr-events", havingValue = "true", matchIfMissing = true)
+public class ProfilingConfig implements WebMvcConfigurer {
+
+    // Outermost advice on services, so their events include the transaction commit
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor serviceCallAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Service.class, true),
+                new ServiceCallInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    // Also Hibernate's statement inspector, see RepositoryQueryInterceptor
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static RepositoryQueryInterceptor repositoryQueryInterceptor() {
+        return new RepositoryQueryInterceptor();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor repositoryQueryAdvisor(RepositoryQueryInterceptor repositoryQueryInterceptor) {
+        return new DefaultPointcutAdvisor(new ComposablePointcut(Repository.class::isAssignableFrom), repositoryQueryInterceptor);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer statementInspectorCustomizer(RepositoryQueryInterceptor repositoryQueryInterceptor) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, repositoryQueryInterceptor);
+    }
+
+    // Picked up by Spring Boot's transaction manager customizer
+    @Bean
+    TransactionExecutionListener transactionCommitListener() {
+        return new TransactionCommitListener();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestProfilingInterceptor());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.movies_api.profiling;
+
+import java.util.concurrent.Callable;
+
+// Endpoint of the request the current thread works for, attached to the profiling events it emits so recordings
+// can be broken down per endpoint
+public final class ProfilingContext {
+    private static final ThreadLocal<String> ENDPOINT = new ThreadLocal<>();
+
+    private ProfilingContext() {
+    }
+
+    public static String endpoint() {
+        return ENDPOINT.get();
+    }
+
+    static void setEndpoint(String endpoint) {
+        ENDPOINT.set(endpoint);
+    }
+
+    static void clear() {
+        ENDPOINT.remove();
+    }
+
+    // Runs work handed to another thread with the endpoint of the submitting thread
+    public static <T> Callable<T> propagate(Callable<T> work) {
+        String endpoint = ENDPOINT.get();
+        if (endpoint == null) {
+            return work;
+        }
+        return () -> {
+            String previous = ENDPOINT.get();
+            ENDPOINT.set(endpoint);
+            try {
+                return work.call();
+            } finally {
+                ENDPOINT.set(previous);
+            }
+        };
+    }
+}
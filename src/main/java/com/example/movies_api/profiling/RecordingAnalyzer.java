@@ -0,0 +1,138 @@
+package com.example.movies_api.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+// Summarizes a flight recording made with the Movies API events into a phase breakdown per endpoint and the
+// statements that took the most time. Needs only the JDK, so it runs from the compiled classes:
+//   java -cp target/classes com.example.movies_api.profiling.RecordingAnalyzer movies.jfr
+// Phase times are inclusive: repository queries and commits run inside service calls, and "other" is the
+// request time spent outside service calls and serialization (controller, response cache, framework).
+public class RecordingAnalyzer {
+    private static final String PREFIX = "com.example.movies_api.";
+    // Endpoint of events emitted outside requests (scheduled jobs, startup)
+    private static final String BACKGROUND = "(background)";
+    private static final int TOP_STATEMENTS = 10;
+    private static final int MAX_STATEMENT_LENGTH = 100;
+
+    private final Map<String, Breakdown> endpoints = new HashMap<>();
+    private final Map<String, StatementTotals> statements = new HashMap<>();
+
+    private static class Breakdown {
+        long requests;
+        long requestNanos;
+        long serviceNanos;
+        long repositoryNanos;
+        long queries;
+        long statements;
+        long commitNanos;
+        long serializationNanos;
+    }
+
+    private static class StatementTotals {
+        final String query;
+        final String statement;
+        long calls;
+        long nanos;
+        long rows;
+
+        StatementTotals(String query, String statement) {
+            this.query = query;
+            this.statement = statement;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: RecordingAnalyzer <recording.jfr>");
+            System.exit(2);
+        }
+        RecordingAnalyzer analyzer = new RecordingAnalyzer();
+        try (RecordingFile recording = new RecordingFile(Path.of(args[0]))) {
+            while (recording.hasMoreEvents()) {
+                analyzer.add(recording.readEvent());
+            }
+        }
+        analyzer.print();
+    }
+
+    void add(RecordedEvent event) {
+        String name = event.getEventType().getName();
+        if (!name.startsWith(PREFIX)) {
+            return;
+        }
+        String endpoint = event.getString("endpoint");
+        Breakdown breakdown = endpoints.computeIfAbsent(endpoint == null ? BACKGROUND : endpoint, key -> new Breakdown());
+        long nanos = event.getDuration().toNanos();
+        switch (name.substring(PREFIX.length())) {
+            case "HttpRequest" -> {
+                breakdown.requests++;
+                breakdown.requestNanos += nanos;
+            }
+            case "ServiceCall" -> {
+                if (!event.getBoolean("nested")) {
+                    breakdown.serviceNanos += nanos;
+                }
+            }
+            case "RepositoryQuery" -> {
+                if (!event.getBoolean("nested")) {
+                    breakdown.repositoryNanos += nanos;
+                    breakdown.queries++;
+                    breakdown.statements += event.getInt("statements");
+                    String query = event.getString("repository") + "." + event.getString("method");
+                    String statement = event.getString("statement");
+                    StatementTotals totals = statements.computeIfAbsent(query + "\n" + statement,
+                            key -> new StatementTotals(query, statement));
+                    totals.calls++;
+                    totals.nanos += nanos;
+                    totals.rows += event.getInt("rows");
+                }
+            }
+            case "TransactionCommit" -> breakdown.commitNanos += nanos;
+            case "Serialization" -> breakdown.serializationNanos += nanos;
+            default -> {
+            }
+        }
+    }
+
+    void print() {
+        System.out.println("Average per request, ms (background: totals)");
+        System.out.printf("%-45s %8s %9s %9s %10s %8s %8s %8s %9s %8s%n", "Endpoint", "Requests", "Request",
+                "Service", "Repository", "Queries", "SQL", "Commit", "Serialize", "Other");
+        endpoints.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Breakdown> entry) -> entry.getValue().requestNanos).reversed())
+                .forEach(entry -> {
+                    Breakdown b = entry.getValue();
+                    double per = Math.max(b.requests, 1);
+                    long other = Math.max(b.requestNanos - b.serviceNanos - b.serializationNanos, 0);
+                    System.out.printf("%-45s %8d %9.3f %9.3f %10.3f %8.1f %8.1f %8.3f %9.3f %8.3f%n", entry.getKey(),
+                            b.requests, millis(b.requestNanos) / per, millis(b.serviceNanos) / per,
+                            millis(b.repositoryNanos) / per, b.queries / per, b.statements / per,
+                            millis(b.commitNanos) / per, millis(b.serializationNanos) / per,
+                            b.requests == 0 ? 0 : millis(other) / per);
+                });
+        System.out.println();
+        System.out.println("Repository queries by total time");
+        System.out.printf("%10s %8s %9s %8s  %s%n", "Total ms", "Calls", "Avg ms", "Avg rows", "Query / statement");
+        statements.values().stream()
+                .sorted(Comparator.comparingLong((StatementTotals totals) -> totals.nanos).reversed())
+                .limit(TOP_STATEMENTS)
+                .forEach(totals -> System.out.printf("%10.3f %8d %9.3f %8.1f  %s%n%42s%s%n", millis(totals.nanos),
+                        totals.calls, millis(totals.nanos) / totals.calls, (double) totals.rows / totals.calls,
+                        totals.query, "", totals.statement.isEmpty() ? "(no SQL, served from the caches)" : abbreviate(totals.statement)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String abbreviate(String statement) {
+        return statement.length() <= MAX_STATEMENT_LENGTH ? statement : statement.substring(0, MAX_STATEMENT_LENGTH - 3) + "...";
+    }
+}
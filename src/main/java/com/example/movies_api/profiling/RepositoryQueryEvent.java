@@ -0,0 +1,27 @@
+package com.example.movies_api.profiling;
+
+import jdk.jfr.*;
+
+// A call of a Spring Data repository method, with the SQL statements Hibernate prepared for it
+@Name("com.example.movies_api.RepositoryQuery")
+@Label("Repository Query")
+@Category("Movies API")
+@StackTrace(false)
+public class RepositoryQueryEvent extends Event {
+    @Label("Endpoint")
+    public String endpoint;
+    @Label("Repository")
+    public String repository;
+    @Label("Method")
+    public String method;
+    @Label("Statement")
+    @Description("Distinct shapes of the prepared SQL, IN lists collapsed; empty when served from the caches")
+    public String statement;
+    @Label("Statements")
+    public int statements;
+    @Label("Rows")
+    @Description("Entities or rows returned: the size of a returned collection or page, 0 or 1 otherwise")
+    public int rows;
+    @Label("Nested")
+    public boolean nested;
+}
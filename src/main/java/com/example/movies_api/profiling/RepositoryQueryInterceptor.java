@@ -0,0 +1,106 @@
+package com.example.movies_api.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+// Emits a RepositoryQuery event around each repository method. Also registered with Hibernate as its
+// StatementInspector, to collect the SQL prepared while a recorded repository call runs on the same thread.
+class RepositoryQueryInterceptor implements MethodInterceptor, StatementInspector {
+    // SQL prepared by the repository call in progress on this thread, null if none is recorded
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+    // Parameter lists of IN clauses, which vary with the number of IDs
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryQueryEvent event = new RepositoryQueryEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        List<String> outer = STATEMENTS.get();
+        List<String> statements = new ArrayList<>();
+        STATEMENTS.set(statements);
+        Object result = null;
+        event.begin();
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            event.end();
+            if (outer == null) {
+                STATEMENTS.remove();
+            } else {
+                STATEMENTS.set(outer);
+                outer.addAll(statements);
+            }
+            if (event.shouldCommit()) {
+                event.endpoint = ProfilingContext.endpoint();
+                event.repository = repositoryName(invocation.getThis());
+                event.method = invocation.getMethod().getName();
+                event.statement = shapes(statements);
+                event.statements = statements.size();
+                event.rows = rows(result);
+                event.nested = outer != null;
+                event.commit();
+            }
+        }
+    }
+
+    // The repository interface a Spring Data proxy implements
+    private String repositoryName(Object repository) {
+        return repositoryNames.computeIfAbsent(repository.getClass(), proxyClass -> {
+            for (Class<?> type : proxyClass.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(type)) {
+                    return type.getSimpleName();
+                }
+            }
+            return proxyClass.getSimpleName();
+        });
+    }
+
+    private static String shapes(List<String> statements) {
+        LinkedHashSet<String> shapes = new LinkedHashSet<>();
+        statements.forEach(sql -> shapes.add(PARAMETER_LIST.matcher(sql).replaceAll("?...")));
+        return String.join("; ", shapes);
+    }
+
+    private static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        } else if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        } else if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        } else if (result instanceof Iterable<?> iterable) {
+            int rows = 0;
+            for (Object ignored : iterable) {
+                rows++;
+            }
+            return rows;
+        }
+        return result == null ? 0 : 1;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.movies_api.profiling;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Sets the endpoint of the profiling context for the handler and emits an HttpRequest event per request.
+// An asynchronous request is dispatched twice; its event is kept in a request attribute in between.
+class RequestProfilingInterceptor implements AsyncHandlerInterceptor {
+    private static final String EVENT_ATTRIBUTE = RequestProfilingInterceptor.class.getName() + ".event";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        ProfilingContext.setEndpoint(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        if (request.getAttribute(EVENT_ATTRIBUTE) == null) {
+            HttpRequestEvent event = new HttpRequestEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                request.setAttribute(EVENT_ATTRIBUTE, event);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ProfilingContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(EVENT_ATTRIBUTE) instanceof HttpRequestEvent event) {
+            request.removeAttribute(EVENT_ATTRIBUTE);
+            event.end();
+            if (event.shouldCommit()) {
+                event.endpoint = ProfilingContext.endpoint();
+                event.status = response.getStatus();
+                event.commit();
+            }
+        }
+        ProfilingContext.clear();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.movies_api.profiling;
+
+import jdk.jfr.*;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.util.Collection;
+
+// Encoding of a response body by an HTTP message converter (Jackson JSON, Smile and CBOR, and Protobuf),
+// including writes into the response cache
+@Name("com.example.movies_api.Serialization")
+@Label("Response Serialization")
+@Category("Movies API")
+@StackTrace(false)
+public class SerializationEvent extends Event {
+    @Label("Endpoint")
+    public String endpoint;
+    @Label("Format")
+    public String format;
+    @Label("Type")
+    @Description("Class of the body, with the class of the first element for collections")
+    public String type;
+
+    @FunctionalInterface
+    public interface Write {
+        void write() throws IOException;
+    }
+
+    // Runs the write of a body, recorded when a recording has this event enabled
+    public static void record(MediaType format, Object body, Write write) throws IOException {
+        SerializationEvent event = new SerializationEvent();
+        if (!event.isEnabled()) {
+            write.write();
+            return;
+        }
+        event.begin();
+        try {
+            write.write();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.endpoint = ProfilingContext.endpoint();
+                event.format = String.valueOf(format);
+                event.type = describe(body);
+                event.commit();
+            }
+        }
+    }
+
+    private static String describe(Object body) {
+        if (body instanceof Collection<?> elements && !elements.isEmpty()) {
+            Object first = elements.iterator().next();
+            return body.getClass().getSimpleName() + "<" + (first == null ? "?" : first.getClass().getSimpleName()) + ">";
+        }
+        return body == null ? "null" : body.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.movies_api.profiling;
+
+import jdk.jfr.*;
+
+// A call of a public method of a @Service bean through its proxy
+@Name("com.example.movies_api.ServiceCall")
+@Label("Service Call")
+@Category("Movies API")
+@StackTrace(false)
+public class ServiceCallEvent extends Event {
+    @Label("Endpoint")
+    public String endpoint;
+    @Label("Service")
+    public String service;
+    @Label("Method")
+    public String method;
+    @Label("Nested")
+    @Description("Called from another service method, so its time is part of the caller's")
+    public boolean nested;
+}
@@ -0,0 +1,35 @@
+package com.example.movies_api.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.util.ClassUtils;
+
+// Emits a ServiceCall event around each service method called through the bean's proxy
+class ServiceCallInterceptor implements MethodInterceptor {
+    // Number of service calls in progress on this thread
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ServiceCallEvent event = new ServiceCallEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        int[] depth = DEPTH.get();
+        boolean nested = depth[0]++ > 0;
+        event.begin();
+        try {
+            return invocation.proceed();
+        } finally {
+            event.end();
+            depth[0]--;
+            if (event.shouldCommit()) {
+                event.endpoint = ProfilingContext.endpoint();
+                event.service = ClassUtils.getUserClass(invocation.getThis()).getSimpleName();
+                event.method = invocation.getMethod().getName();
+                event.nested = nested;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.movies_api.profiling;
+
+import jdk.jfr.*;
+
+// The commit of a transaction: flushing pending changes and the database commit itself
+@Name("com.example.movies_api.TransactionCommit")
+@Label("Transaction Commit")
+@Category("Movies API")
+@StackTrace(false)
+public class TransactionCommitEvent extends Event {
+    @Label("Endpoint")
+    public String endpoint;
+    @Label("Transaction")
+    public String transaction;
+    @Label("Failed")
+    public boolean failed;
+}
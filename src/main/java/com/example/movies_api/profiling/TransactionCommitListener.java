@@ -0,0 +1,35 @@
+package com.example.movies_api.profiling;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+// Emits a TransactionCommit event for each commit of a new transaction by the transaction manager
+class TransactionCommitListener implements TransactionExecutionListener {
+    private static final ThreadLocal<TransactionCommitEvent> COMMIT = new ThreadLocal<>();
+
+    @Override
+    public void beforeCommit(TransactionExecution transaction) {
+        TransactionCommitEvent event = new TransactionCommitEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            COMMIT.set(event);
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        TransactionCommitEvent event = COMMIT.get();
+        if (event == null) {
+            return;
+        }
+        COMMIT.remove();
+        event.end();
+        if (event.shouldCommit()) {
+            event.endpoint = ProfilingContext.endpoint();
+            event.transaction = transaction.getTransactionName();
+            event.failed = commitFailure != null;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.movies_api.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Latest snapshot shipped by the primary. consistentAt is the last time (epoch millis) the primary confirmed that
+// the snapshot contains every committed change; it moves forward on each interval, also when nothing changed.
+public record ReplicationManifest(String snapshot, long createdAt, long consistentAt) {
+
+    static final String FILE_NAME = "manifest.json";
+
+    // Replaces the manifest atomically, so followers never read a partly written one
+    void writeTo(Path directory, ObjectMapper objectMapper) throws IOException {
+        Path partial = directory.resolve(FILE_NAME + ".partial");
+        objectMapper.writeValue(partial.toFile(), this);
+        Files.move(partial, directory.resolve(FILE_NAME), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Returns null while the primary has not shipped anything yet
+    static ReplicationManifest readFrom(Path directory, ObjectMapper objectMapper) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        return Files.isRegularFile(file) ? objectMapper.readValue(file.toFile(), ReplicationManifest.class) : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.movies_api.replication;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Settings of snapshot replication (movies.replication.* in application.properties)
+@ConfigurationProperties(prefix = "movies.replication")
+public record ReplicationProperties(
+        @DefaultValue("standalone") Role role,
+        // Directory shared by the primary and its followers, holding the snapshots and the manifest
+        @DefaultValue("replication") Path directory,
+        // How often the primary ships changes and followers look for a new snapshot
+        @DefaultValue("5s") Duration interval,
+        // Number of snapshots the primary keeps, so followers can finish applying one it has replaced
+        @DefaultValue("3") int retain,
+        // Base URL of the primary that followers redirect writes to, e.g. http://primary:8080
+        String primaryUrl) {
+
+    public enum Role {
+        STANDALONE,
+        PRIMARY,
+        FOLLOWER
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.movies_api.replication;
+
+import com.example.movies_api.service.BackupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+// Follower side of replication: polls the manifest in the shared directory and restores each new snapshot into
+// the local database, which also rebuilds the in-memory indexes and caches (BackupService.restoreFrom).
+// movies.replication.lag.seconds is how far the data served here may be behind the primary.
+@Component
+@ConditionalOnProperty(prefix = "movies.replication", name = "role", havingValue = "follower")
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class SnapshotFollower {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotFollower.class);
+
+    private final ReplicationProperties properties;
+    private final BackupService backupService;
+    private final TaskScheduler taskScheduler;
+    private final ObjectMapper objectMapper;
+    private final Counter applied;
+    private final Counter failed;
+
+    private String appliedSnapshot;
+    // When the primary last confirmed that the applied snapshot was current, 0 until one is applied
+    private volatile long consistentAt;
+
+    public SnapshotFollower(ReplicationProperties properties, BackupService backupService, TaskScheduler taskScheduler,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.backupService = backupService;
+        this.taskScheduler = taskScheduler;
+        this.objectMapper = objectMapper;
+        this.applied = meterRegistry.counter("movies.replication.snapshots", "result", "applied");
+        this.failed = meterRegistry.counter("movies.replication.snapshots", "result", "failed");
+        Gauge.builder("movies.replication.lag.seconds", this, SnapshotFollower::lagSeconds).register(meterRegistry);
+    }
+
+    // Starts once the application is ready, then runs every movies.replication.interval
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        taskScheduler.scheduleWithFixedDelay(this::poll, properties.interval());
+    }
+
+    public void poll() {
+        try {
+            ReplicationManifest manifest = ReplicationManifest.readFrom(properties.directory(), objectMapper);
+            if (manifest == null) {
+                return;
+            }
+            if (!Objects.equals(manifest.snapshot(), appliedSnapshot)) {
+                Path snapshot = properties.directory().resolve(manifest.snapshot());
+                if (!SnapshotPublisher.SNAPSHOT_NAME.matcher(manifest.snapshot()).matches()) {
+                    throw new IOException("Unexpected snapshot name in manifest: " + manifest.snapshot());
+                }
+                backupService.restoreFrom(snapshot);
+                appliedSnapshot = manifest.snapshot();
+                applied.increment();
+            }
+            consistentAt = manifest.consistentAt();
+        } catch (IOException | RuntimeException e) {
+            // Keep serving the last applied snapshot; the lag grows until the next one is applied
+            failed.increment();
+            log.warn("Could not apply the latest snapshot from {}: {}", properties.directory(), e.getMessage());
+        }
+    }
+
+    // Seconds since the data served here was known to match the primary, NaN before the first snapshot
+    public double lagSeconds() {
+        long at = consistentAt;
+        return at == 0 ? Double.NaN : Math.max(0, System.currentTimeMillis() - at) / 1000.0;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.movies_api.replication;
+
+import com.example.movies_api.cache.ChangeTracker;
+import com.example.movies_api.service.BackupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Primary side of replication: ships a page-level copy of the database (SQLite backup API) to the shared directory
+// whenever the catalogue changed since the last one, and refreshes the manifest on every interval so followers
+// can tell how current their copy is.
+@Component
+@ConditionalOnProperty(prefix = "movies.replication", name = "role", havingValue = "primary")
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class SnapshotPublisher {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotPublisher.class);
+    static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-\\d+\\.db");
+
+    private final ReplicationProperties properties;
+    private final BackupService backupService;
+    private final TaskScheduler taskScheduler;
+    private final ChangeTracker changeTracker;
+    private final ObjectMapper objectMapper;
+    private final Counter shipped;
+
+    // Change stamp contained in the last shipped snapshot; -1 so the first interval always ships one
+    private long shippedStamp = -1;
+    private ReplicationManifest manifest;
+
+    public SnapshotPublisher(ReplicationProperties properties, BackupService backupService, TaskScheduler taskScheduler,
+                             ChangeTracker changeTracker, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.backupService = backupService;
+        this.taskScheduler = taskScheduler;
+        this.changeTracker = changeTracker;
+        this.objectMapper = objectMapper;
+        this.shipped = meterRegistry.counter("movies.replication.snapshots", "result", "shipped");
+    }
+
+    // Starts once the application is ready, then runs every movies.replication.interval
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        taskScheduler.scheduleWithFixedDelay(this::publish, properties.interval());
+    }
+
+    public void publish() {
+        try {
+            Path directory = properties.directory();
+            Files.createDirectories(directory);
+            // Read before copying: a change committed during the copy may be missing from it and is shipped next time
+            long stamp = changeTracker.currentStamp();
+            long start = System.currentTimeMillis();
+            if (stamp != shippedStamp) {
+                String name = "snapshot-" + start + ".db";
+                long sizeBytes = backupService.copyTo(directory.resolve(name));
+                manifest = new ReplicationManifest(name, start, start);
+                manifest.writeTo(directory, objectMapper);
+                shippedStamp = stamp;
+                shipped.increment();
+                log.info("Shipped snapshot {} ({} bytes) in {} ms", name, sizeBytes, System.currentTimeMillis() - start);
+                deleteOldSnapshots(directory);
+            } else {
+                manifest = new ReplicationManifest(manifest.snapshot(), manifest.createdAt(), start);
+                manifest.writeTo(directory, objectMapper);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not ship a snapshot to {}", properties.directory(), e);
+        }
+    }
+
+    private void deleteOldSnapshots(Path directory) throws IOException {
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshots = files.filter(file -> SNAPSHOT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .toList();
+        }
+        for (Path old : snapshots.subList(Math.min(properties.retain(), snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+}
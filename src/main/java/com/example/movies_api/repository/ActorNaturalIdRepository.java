@@ -0,0 +1,12 @@
+package com.example.movies_api.repository;
+
+import com.example.movies_api.entities.Actor;
+
+import java.util.Optional;
+
+// Exact actor name lookups resolved through the natural-id cache instead of a query
+public interface ActorNaturalIdRepository {
+
+    // Finds an actor by their name, returning an Optional to handle the case where the actor may not exist
+    Optional<Actor> findByActorName(String actorName);
+}
@@ -0,0 +1,21 @@
+package com.example.movies_api.repository;
+
+import com.example.movies_api.entities.Actor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+public class ActorNaturalIdRepositoryImpl implements ActorNaturalIdRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Actor> findByActorName(String actorName) {
+        if (actorName == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Actor.class).loadOptional(actorName);
+    }
+}
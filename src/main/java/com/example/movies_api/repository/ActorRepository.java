@@ -7,22 +7,19 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.List;
 import java.util.Set;
 
 @Repository
-public interface ActorRepository extends JpaRepository<Actor, Long> {
-
-
-    // Finds an actor by their name, returning an Optional to handle the case where the actor may not exist
-    Optional<Actor> findByActorName(String actorName);
+public interface ActorRepository extends JpaRepository<Actor, Long>, ActorNaturalIdRepository {
 
     // Retrieves a set of movies associated with a specific actor by their ID
     @Query("SELECT a.movieSet FROM Actor a WHERE a.actorId = :actorId")
     Set<Movie> findMoviesByActorId(Long actorId);
 
     // Finds actors whose names contain the specified substring, case-insensitively
-    @Query("SELECT a FROM Actor a WHERE LOWER(a.actorName) LIKE LOWER(CONCAT('%', :someName, '%'))")
+    // (rendered as ILIKE on PostgreSQL, where trigram indexes serve it, and as LOWER() LIKE LOWER() on SQLite)
+    @Query("SELECT a FROM Actor a WHERE a.actorName ILIKE CONCAT('%', :someName, '%')")
     Set<Actor> findByPartialActorName(@Param("someName") String someName);
 
     // Counts the number of actors associated with a specific movie by its ID
@@ -33,4 +30,8 @@ public interface ActorRepository extends JpaRepository<Actor, Long> {
     @Query("SELECT a FROM Actor a JOIN a.movieSet m WHERE m.movieId = :movieId")
     Set<Actor> findActorsByMovieId(@Param("movieId") Long movieId);
 
+    // Retrieves every actor ID with its name, used to load the in-memory name dictionary
+    @Query("SELECT a.actorId, a.actorName FROM Actor a")
+    List<Object[]> findAllActorIdsAndNames();
+
 }
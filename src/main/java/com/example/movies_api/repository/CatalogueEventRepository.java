@@ -0,0 +1,15 @@
+package com.example.movies_api.repository;
+
+import com.example.movies_api.entities.CatalogueEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CatalogueEventRepository extends JpaRepository<CatalogueEvent, Long> {
+
+    // Retrieves the events recorded after the given offset, oldest first
+    List<CatalogueEvent> findByEventIdGreaterThanOrderByEventIdAsc(Long eventId, Pageable pageable);
+}
@@ -0,0 +1,15 @@
+package com.example.movies_api.repository;
+
+import com.example.movies_api.entities.EntityPopularity;
+import com.example.movies_api.entities.EntityType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EntityPopularityRepository extends JpaRepository<EntityPopularity, EntityPopularity.Key> {
+
+    // Retrieves the persisted scores of one entity type, highest first
+    List<EntityPopularity> findByEntityTypeOrderByScoreDesc(EntityType entityType);
+}
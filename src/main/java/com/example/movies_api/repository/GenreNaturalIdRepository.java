@@ -0,0 +1,12 @@
+package com.example.movies_api.repository;
+
+import com.example.movies_api.entities.Genre;
+
+import java.util.Optional;
+
+// Exact genre name lookups resolved through the natural-id cache instead of a query
+public interface GenreNaturalIdRepository {
+
+    // Finds a genre by its name, returning an Optional to handle the case where the genre may not exist
+    Optional<Genre> findByGenreName(String genreName);
+}
@@ -0,0 +1,21 @@
+package com.example.movies_api.repository;
+
+import com.example.movies_api.entities.Genre;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+public class GenreNaturalIdRepositoryImpl implements GenreNaturalIdRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Genre> findByGenreName(String genreName) {
+        if (genreName == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Genre.class).loadOptional(genreName);
+    }
+}
@@ -2,8 +2,11 @@ package com.example.movies_api.repository;
 
 import com.example.movies_api.entities.Genre;
 import com.example.movies_api.entities.Movie;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,7 +15,7 @@ import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface GenreRepository extends JpaRepository<Genre, Long> {
+public interface GenreRepository extends JpaRepository<Genre, Long>, GenreNaturalIdRepository {
 
     // Finds all genres that match a specific genre name
     List<Genre> findAllByGenreName(String genreName);
@@ -24,9 +27,6 @@ public interface GenreRepository extends JpaRepository<Genre, Long> {
     @Query("SELECT g.movieSet FROM Genre g WHERE LOWER(g.genreName) = LOWER(:genreName)")
     Set<Movie> findMoviesByGenreName(String genreName);
 
-    // Finds a genre by its name, returning an Optional to handle the case where the genre may not exist
-    Optional<Genre> findByGenreName(String genreName);
-
     // Counts the number of genres associated with a specific movie by its ID
     @Query("SELECT COUNT(g) FROM Movie m JOIN m.genreSet g WHERE m.movieId = :movieId")
     int countGenresByMovieId(@Param("movieId") Long movieId);
@@ -35,6 +35,11 @@ public interface GenreRepository extends JpaRepository<Genre, Long> {
     @Query("SELECT g FROM Genre g JOIN g.movieSet m WHERE m.movieId = :movieId")
     Set<Genre> findGenresByMovieId(@Param("movieId") Long movieId);
 
-    // Finds a genre by its name, ignoring case sensitivity
+    // Finds a genre by its name, ignoring case sensitivity. The result is kept in the query cache.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Genre> findByGenreNameIgnoreCase(String genreName);
+
+    // Retrieves every genre ID with its name, used to load the in-memory name dictionary
+    @Query("SELECT g.genreId, g.genreName FROM Genre g")
+    List<Object[]> findAllGenreIdsAndNames();
 }
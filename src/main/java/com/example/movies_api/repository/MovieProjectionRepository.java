@@ -0,0 +1,21 @@
+package com.example.movies_api.repository;
+
+import com.example.movies_api.dto.MovieFieldSet;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+// Sparse movie reads: only the columns and associations named by a MovieFieldSet are selected,
+// and each row is returned as a map holding exactly those properties
+public interface MovieProjectionRepository {
+
+    // Retrieves all movies sorted by title
+    List<Map<String, Object>> findAllProjected(MovieFieldSet fieldSet);
+
+    // Retrieves one page of movies in ID order
+    List<Map<String, Object>> findPageProjected(MovieFieldSet fieldSet, Pageable pageable);
+
+    // Finds movies whose titles contain the specified substring, case-insensitively
+    List<Map<String, Object>> findProjectedByPartialMovieTitle(MovieFieldSet fieldSet, String someName);
+}
@@ -0,0 +1,105 @@
+package com.example.movies_api.repository;
+
+import com.example.movies_api.dto.MovieFieldSet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class MovieProjectionRepositoryImpl implements MovieProjectionRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(MovieFieldSet fieldSet) {
+        List<Map<String, Object>> movies = query(fieldSet, "", "ORDER BY LOWER(m.movieTitle)", Map.of(), null);
+        attachAssociations(fieldSet, movies, "", Map.of());
+        return movies;
+    }
+
+    @Override
+    public List<Map<String, Object>> findPageProjected(MovieFieldSet fieldSet, Pageable pageable) {
+        List<Map<String, Object>> movies = query(fieldSet, "", "ORDER BY m.movieId", Map.of(), pageable);
+        if (!movies.isEmpty()) {
+            // The page limit cannot be applied to the association rows, so they are selected by the IDs on the page
+            List<Object> movieIds = movies.stream().map(movie -> movie.get("movieId")).toList();
+            attachAssociations(fieldSet, movies, "WHERE m.movieId IN :movieIds", Map.of("movieIds", movieIds));
+        }
+        return movies;
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjectedByPartialMovieTitle(MovieFieldSet fieldSet, String someName) {
+        String where = "WHERE m.movieTitle ILIKE CONCAT('%', :someName, '%')";
+        Map<String, Object> parameters = Map.of("someName", someName);
+        List<Map<String, Object>> movies = query(fieldSet, where, "ORDER BY m.movieId", parameters, null);
+        if (!movies.isEmpty()) {
+            attachAssociations(fieldSet, movies, where, parameters);
+        }
+        return movies;
+    }
+
+    // Selects only the requested movie columns
+    private List<Map<String, Object>> query(MovieFieldSet fieldSet, String where, String orderBy,
+                                            Map<String, Object> parameters, Pageable pageable) {
+        String select = fieldSet.movieFields().stream().map(field -> "m." + field).collect(Collectors.joining(", "));
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                "SELECT " + select + " FROM Movie m " + where + " " + orderBy, Object[].class);
+        parameters.forEach(query::setParameter);
+        if (pageable != null) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> movies = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            movies.add(toMap(fieldSet.movieFields(), row, 0));
+        }
+        return movies;
+    }
+
+    // Adds the requested genres and actors with one join query each, restricted by the same condition as the movies
+    private void attachAssociations(MovieFieldSet fieldSet, List<Map<String, Object>> movies, String where,
+                                    Map<String, Object> parameters) {
+        if (fieldSet.includesGenres()) {
+            attach(movies, MovieFieldSet.GENRES, "g", fieldSet.genreFields(), "ORDER BY g.genreName", where, parameters);
+        }
+        if (fieldSet.includesActors()) {
+            attach(movies, MovieFieldSet.ACTORS, "a", fieldSet.actorFields(), "ORDER BY a.actorName", where, parameters);
+        }
+    }
+
+    private void attach(List<Map<String, Object>> movies, String association, String alias, List<String> fields,
+                        String orderBy, String where, Map<String, Object> parameters) {
+        Map<Object, List<Map<String, Object>>> byMovieId = new HashMap<>();
+        for (Map<String, Object> movie : movies) {
+            List<Map<String, Object>> related = new ArrayList<>();
+            movie.put(association, related);
+            byMovieId.put(movie.get("movieId"), related);
+        }
+        String select = fields.stream().map(field -> alias + "." + field).collect(Collectors.joining(", "));
+        TypedQuery<Object[]> query = entityManager.createQuery("SELECT m.movieId, " + select + " FROM Movie m JOIN m."
+                + association + " " + alias + " " + where + " " + orderBy, Object[].class);
+        parameters.forEach(query::setParameter);
+        for (Object[] row : query.getResultList()) {
+            List<Map<String, Object>> related = byMovieId.get(row[0]);
+            if (related != null) {
+                related.add(toMap(fields, row, 1));
+            }
+        }
+    }
+
+    private static Map<String, Object> toMap(List<String> fields, Object[] row, int offset) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            map.put(fields.get(i), row[offset + i]);
+        }
+        return map;
+    }
+}
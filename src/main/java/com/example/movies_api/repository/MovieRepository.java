@@ -6,12 +6,13 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface MovieRepository extends JpaRepository<Movie, Long> {
+public interface MovieRepository extends JpaRepository<Movie, Long>, MovieProjectionRepository {
 
     // Finds a movie by its title, returning an Optional to handle the case where the movie may not exist
     Optional<Movie> findByMovieTitle(String movieTitle);
@@ -39,9 +40,30 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     int countMoviesByActorId(@Param("actorId") Long actorId);
 
     // Finds movies whose titles contain the specified substring, case-insensitively
-    @Query("SELECT m FROM Movie m WHERE LOWER(m.movieTitle) LIKE LOWER(CONCAT('%', :someName, '%'))")
+    // (rendered as ILIKE on PostgreSQL, where trigram indexes serve it, and as LOWER() LIKE LOWER() on SQLite)
+    @Query("SELECT m FROM Movie m WHERE m.movieTitle ILIKE CONCAT('%', :someName, '%')")
     Set<Movie> findByPartialMovieTitle(@Param("someName") String someName);
 
     // Finds movies with a specific title, excluding a movie with a given ID (useful for updating)
     List<Movie> findByMovieTitleAndMovieIdNot(String movieTitle, Long movieId);
+
+    // Loads the movies with the given IDs together with their genres and actors in a single query
+    @Query("SELECT DISTINCT m FROM Movie m LEFT JOIN FETCH m.genreSet LEFT JOIN FETCH m.actorSet WHERE m.movieId IN :movieIds")
+    List<Movie> findAllWithGenresAndActorsByMovieIdIn(@Param("movieIds") Collection<Long> movieIds);
+
+    // Retrieves every movie ID with its release year, used to build the in-memory filter index
+    @Query("SELECT m.movieId, m.releaseYear FROM Movie m")
+    List<Object[]> findAllMovieIdsAndReleaseYears();
+
+    // Retrieves every movie title, used to build the title filter of the in-memory index
+    @Query("SELECT m.movieTitle FROM Movie m")
+    List<String> findAllMovieTitles();
+
+    // Retrieves every (movie ID, genre ID) pair from the genre_movies join table
+    @Query("SELECT m.movieId, g.genreId FROM Movie m JOIN m.genreSet g")
+    List<Object[]> findAllMovieGenrePairs();
+
+    // Retrieves every (movie ID, actor ID) pair from the movie_actors join table
+    @Query("SELECT m.movieId, a.actorId FROM Movie m JOIN m.actorSet a")
+    List<Object[]> findAllMovieActorPairs();
 }
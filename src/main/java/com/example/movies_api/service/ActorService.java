@@ -1,12 +1,24 @@
 package com.example.movies_api.service;
 
+import com.example.movies_api.cache.SingleFlight;
+import com.example.movies_api.dto.BatchResult;
 import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.CatalogueEvent;
+import com.example.movies_api.entities.EntityType;
 import com.example.movies_api.entities.Movie;
 import com.example.movies_api.exceptions.ResourceNotFoundException;
+import com.example.movies_api.index.MovieFilterIndex;
+import com.example.movies_api.index.SimilarMoviesIndex;
+import com.example.movies_api.index.NameDictionary;
+import com.example.movies_api.index.NegativeLookupFilter;
+import com.example.movies_api.popularity.PopularityTracker;
 import com.example.movies_api.repository.ActorRepository;
 import com.example.movies_api.repository.MovieRepository;
+import com.example.movies_api.sharding.ShardedMovieService;
 import org.apache.coyote.BadRequestException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,65 +32,125 @@ public class ActorService {
     ActorRepository actorRepository; // Repository for accessing Actor data
     @Autowired
     MovieRepository movieRepository;
+    @Autowired
+    MovieFilterIndex movieFilterIndex;
+    @Autowired
+    SimilarMoviesIndex similarMoviesIndex;
+    @Autowired
+    CatalogueEventService catalogueEventService;
+    @Autowired
+    SingleFlight singleFlight;
+    @Autowired
+    NameDictionary nameDictionary;
+    @Autowired
+    NegativeLookupFilter negativeLookupFilter;
+    @Autowired
+    PopularityTracker popularityTracker;
+    // Present when movies.sharding.enabled is set; sharded movies reference the same genres and actors
+    @Autowired
+    ObjectProvider<ShardedMovieService> shardedMovieService;
+    // Maximum number of entities one multi-get request may ask for
+    @Value("${movies.batch.max-ids:100}")
+    int maxBatchIds;
+
+    // Fields reported in the catalogue event of a newly created actor
+    static final List<String> ACTOR_FIELDS = List.of("actorName", "birthDate");
 
 
     // Retrieves a list of all actors, sorted by name
     public List<Actor> getAllActors() {
-        List<Actor> actorList = actorRepository.findAll();
-        return actorList.stream().sorted((actor1, actor2) -> actor1.getActorName().compareTo(actor2.getActorName()))
-                .collect(Collectors.toList());
+        return singleFlight.execute("getAllActors", "", () -> {
+            List<Actor> actorList = actorRepository.findAll();
+            return actorList.stream().sorted((actor1, actor2) -> actor1.getActorName().compareTo(actor2.getActorName()))
+                    .collect(Collectors.toList());
+        });
     }
 
     // Saves a new actor after checking if they already exist
     public Actor save(Actor actor) throws BadRequestException {
-        Optional<Actor> actorCheck = actorRepository.findByActorName(actor.getActorName());
-        if (actorCheck.isPresent()) {
-            throw new BadRequestException("Actor " + actor.getActorName() + " already exist");
-        }
-        return actorRepository.save(actor);
+        return nameDictionary.createIfAbsent(EntityType.ACTOR, actor.getActorName(), actorRepository::findById,
+                        () -> catalogueEventService.saveAndPublish(EntityType.ACTOR, CatalogueEvent.Operation.CREATE, ACTOR_FIELDS,
+                                () -> actorRepository.save(actor), Actor::getActorId),
+                        Actor::getActorId)
+                .orElseThrow(() -> new BadRequestException("Actor " + actor.getActorName() + " already exist"));
+    }
+
+    // Loads the actors with the given IDs in one query, in the requested order.
+    // IDs the negative lookup filter rules out are reported missing without being queried.
+    public BatchResult<Actor> findActorsByIds(List<Long> actorIds) throws BadRequestException {
+        List<Long> ids = BatchResult.distinctIds(actorIds, maxBatchIds);
+        List<Long> candidates = ids.stream().filter(id -> negativeLookupFilter.mayExist(EntityType.ACTOR, id)).toList();
+        List<Actor> actors = candidates.isEmpty() ? List.of() : actorRepository.findAllById(candidates);
+        return BatchResult.of(ids, actors, Actor::getActorId);
     }
 
     // Finds an actor by their ID, throwing an exception if not found
     public Actor findActorById(Long actorId) {
-        boolean exists = actorRepository.existsById(actorId);
-        if (!exists) {
+        if (!negativeLookupFilter.mayExist(EntityType.ACTOR, actorId)) {
             throw new ResourceNotFoundException("Actor with id " + actorId + " does not exists");
         }
-        return actorRepository.findById(actorId).orElseThrow();
+        Actor actor = singleFlight.execute("findActorById", actorId, () -> {
+            boolean exists = actorRepository.existsById(actorId);
+            if (!exists) {
+                throw new ResourceNotFoundException("Actor with id " + actorId + " does not exists");
+            }
+            return actorRepository.findById(actorId).orElseThrow();
+        });
+        popularityTracker.recordHit(EntityType.ACTOR, actorId);
+        return actor;
+    }
+
+    // Finds the most read actors, by decayed read count, most read first
+    public List<Actor> findTrendingActors(int limit) throws BadRequestException {
+        if (limit <= 0 || limit > maxBatchIds) {
+            throw new BadRequestException("Limit must be between 1 and " + maxBatchIds);
+        }
+        List<Long> trendingIds = popularityTracker.trending(EntityType.ACTOR, limit).stream().map(PopularityTracker.Trending::id).toList();
+        return BatchResult.of(trendingIds, actorRepository.findAllById(trendingIds), Actor::getActorId).found();
     }
 
     // Retrieves movies associated with a specific actor by their ID
     public Set<Movie> getMoviesByActorId(Long actorId) {
-        boolean exists = actorRepository.existsById(actorId);
-        if (!exists) {
-            throw new ResourceNotFoundException("Actor with id " + actorId + " does not exists");
-        }
-        Set<Movie> movieSet = actorRepository.findMoviesByActorId(actorId);
-        if (movieSet.isEmpty()) {
-            throw new ResourceNotFoundException("No movies found fot the actor with ID " + actorId);
-        }
-        return movieSet;
+        return singleFlight.execute("getMoviesByActorId", actorId, () -> {
+            boolean exists = actorRepository.existsById(actorId);
+            if (!exists) {
+                throw new ResourceNotFoundException("Actor with id " + actorId + " does not exists");
+            }
+            Set<Movie> movieSet = actorRepository.findMoviesByActorId(actorId);
+            if (movieSet.isEmpty()) {
+                throw new ResourceNotFoundException("No movies found fot the actor with ID " + actorId);
+            }
+            return MovieService.initializeAssociations(movieSet);
+        });
     }
 
     // Updates an existing actor's details
+    @Transactional
     public void updateActor(Long actorId, String actorName, String birthDate, Set<Movie> movieSet) throws BadRequestException {
         Actor actor = actorRepository.findById(actorId).orElseThrow(() -> new ResourceNotFoundException(
                 "Actor with id " + actorId + " does not exists"
         ));
+        Set<String> changedFields = new LinkedHashSet<>();// Names of the fields that were updated
         // Update actor name if provided and different from existing
         if (actorName != null && actorName.length() > 0 && !Objects.equals(actor.getActorName(), actorName)) {
+            nameDictionary.rename(EntityType.ACTOR, actorId, actor.getActorName(), actorName);
             actor.setActorName(actorName);
-
+            changedFields.add("actorName");
         }
         // Update birth date if provided and different from existing
         if (birthDate != null && !actor.getBirthDate().equals(birthDate)) {
             actor.setBirthDate(birthDate);
+            changedFields.add("birthDate");
         }
         // Update associated movies if provided
         if (movieSet != null && !movieSet.isEmpty()) {
             actor.setMovieSet(movieSet);
+            changedFields.add("movieSet");
         }
         actorRepository.save(actor);
+        if (!changedFields.isEmpty()) {
+            catalogueEventService.publish(EntityType.ACTOR, actorId, CatalogueEvent.Operation.UPDATE, changedFields);
+        }
     }
 
     // Deletes an actor by their ID, checking for associated movies unless forced
@@ -89,7 +161,11 @@ public class ActorService {
             throw new ResourceNotFoundException("Actor with id " + actorId + " does not exits");
         }
         // Count how many movies are associated with the actor
-        int associatedMoviesCount = movieRepository.countMoviesByActorId(actorId);
+        long associatedMoviesCount = movieRepository.countMoviesByActorId(actorId);
+        ShardedMovieService shards = shardedMovieService.getIfAvailable();
+        if (shards != null) {
+            associatedMoviesCount += shards.countMoviesByActorId(actorId);
+        }
         // Prevent deletion if there are associated movies unless forced
         if (associatedMoviesCount > 0 && !force) {
             throw new BadRequestException("Cannot delete genre " + actorRepository.findById(actorId).get().getActorName() +
@@ -99,17 +175,27 @@ public class ActorService {
             Set<Movie> movies = actorRepository.findMoviesByActorId(actorId);
             for (Movie movie : movies) {
                 movie.getActorSet().removeIf(actor -> actor.getActorId().equals(actorId));
+                catalogueEventService.publish(EntityType.MOVIE, movie.getMovieId(), CatalogueEvent.Operation.UPDATE, List.of("actorSet"));
             }
+            nameDictionary.remove(EntityType.ACTOR, actorId, actorRepository.findById(actorId).orElseThrow().getActorName());
             actorRepository.deleteById(actorId);
+            movieFilterIndex.removeActor(actorId);
+            similarMoviesIndex.removeActor(actorId);
+            if (shards != null) {
+                shards.removeActor(actorId);
+            }
+            catalogueEventService.publish(EntityType.ACTOR, actorId, CatalogueEvent.Operation.DELETE, List.of());
         }
     }
 
 
     public Set<Actor> findActorsByPartialName(String someName) {
-        Set<Actor> actors = actorRepository.findByPartialActorName(someName);
-        if (actors.isEmpty()) {
-            throw new ResourceNotFoundException("No actors found with name containing: " + someName);
-        }
-        return new HashSet<>(actors);
+        return singleFlight.execute("findActorsByPartialName", someName, () -> {
+            Set<Actor> actors = actorRepository.findByPartialActorName(someName);
+            if (actors.isEmpty()) {
+                throw new ResourceNotFoundException("No actors found with name containing: " + someName);
+            }
+            return new HashSet<>(actors);
+        });
     }
 }
@@ -0,0 +1,247 @@
+package com.example.movies_api.service;
+
+import com.example.movies_api.cache.ChangeTracker;
+import com.example.movies_api.exceptions.BackendNotSupportedException;
+import com.example.movies_api.exceptions.ResourceNotFoundException;
+import com.example.movies_api.index.MovieFilterIndex;
+import com.example.movies_api.index.NameDictionary;
+import com.example.movies_api.index.SimilarMoviesIndex;
+import com.example.movies_api.invalidation.InvalidationBus;
+import com.example.movies_api.repository.ActorRepository;
+import com.example.movies_api.repository.GenreRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.coyote.BadRequestException;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Online snapshots of the SQLite database. Backups use the SQLite backup API, which copies the database in steps
+// of a few pages and only holds a read lock during each step, so writes continue while a backup runs.
+// Restores copy a snapshot back into the live database and then rebuild the in-memory indexes and prewarm the
+// second-level cache before returning.
+@Service
+public class BackupService {
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ChangeTracker changeTracker;
+    @Autowired
+    private MovieFilterIndex movieFilterIndex;
+    @Autowired
+    private SimilarMoviesIndex similarMoviesIndex;
+    @Autowired
+    private NameDictionary nameDictionary;
+    @Autowired
+    private GenreRepository genreRepository;
+    @Autowired
+    private ActorRepository actorRepository;
+    @Autowired
+    private CatalogueEventService catalogueEventService;
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${movies.backup.directory:backups}")
+    private Path directory;
+    // Number of most recent snapshots kept, older ones are deleted after each backup
+    @Value("${movies.backup.retain:7}")
+    private int retain;
+
+    private static final Logger log = LoggerFactory.getLogger(BackupService.class);
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("movies-\\d{8}-\\d{6}-\\d{3}\\.db");
+
+    // Only one backup or restore runs at a time
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public record Snapshot(String name, long sizeBytes) {
+    }
+
+    public record BackupResult(String name, long sizeBytes, long durationMillis) {
+    }
+
+    public record RestoreResult(String name, long restoreMillis, long prewarmMillis) {
+    }
+
+    // Writes a new snapshot; it only appears under its final name once complete
+    public BackupResult backup() throws BadRequestException {
+        if (!lock.tryLock()) {
+            throw new BadRequestException("A backup or restore is already running");
+        }
+        try {
+            String name = "movies-" + LocalDateTime.now(ZoneOffset.UTC).format(NAME_FORMAT) + ".db";
+            long start = System.nanoTime();
+            long sizeBytes = copyTo(directory.resolve(name));
+            BackupResult result = new BackupResult(name, sizeBytes, millisSince(start));
+            log.info("Backup {} written: {} bytes in {} ms", name, result.sizeBytes(), result.durationMillis());
+            deleteOldSnapshots();
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Copies the live database to the given file and returns its size. The copy is written next to the target
+    // and moved into place once complete, so readers of the directory never see a partial file.
+    public long copyTo(Path target) {
+        lock.lock();
+        try {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Path partial = target.resolveSibling(target.getFileName() + ".partial");
+            withSqliteConnection(connection -> connection.getDatabase().backup("main", partial.toString(),
+                    (remaining, pageCount) -> {
+                    }));
+            return Files.size(Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Scheduled backups, disabled unless movies.backup.cron is set
+    @Scheduled(cron = "${movies.backup.cron:-}")
+    public void scheduledBackup() {
+        try {
+            backup();
+        } catch (BadRequestException e) {
+            log.warn("Scheduled backup skipped: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Scheduled backup failed", e);
+        }
+    }
+
+    // Lists the snapshots, newest first
+    public List<Snapshot> listSnapshots() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SNAPSHOT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .map(file -> new Snapshot(file.getFileName().toString(), file.toFile().length()))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Replaces the contents of the live database with a snapshot, then reloads everything kept in memory
+    public RestoreResult restore(String name) throws BadRequestException {
+        if (!SNAPSHOT_NAME.matcher(name).matches()) {
+            throw new BadRequestException("Invalid snapshot name " + name);
+        }
+        Path snapshot = directory.resolve(name);
+        if (!Files.isRegularFile(snapshot)) {
+            throw new ResourceNotFoundException("Snapshot " + name + " does not exist");
+        }
+        if (!lock.tryLock()) {
+            throw new BadRequestException("A backup or restore is already running");
+        }
+        try {
+            return restoreFrom(snapshot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Restores the database from any snapshot file, also used by followers applying snapshots shipped by the primary
+    public RestoreResult restoreFrom(Path snapshot) {
+        lock.lock();
+        try {
+            long start = System.nanoTime();
+            withSqliteConnection(connection -> connection.getDatabase().restore("main", snapshot.toString(),
+                    (remaining, pageCount) -> {
+                    }));
+            long restoreMillis = millisSince(start);
+
+            start = System.nanoTime();
+            reloadCaches();
+            // Instances sharing the database drop their caches as well
+            invalidationBus.publishFlush();
+            String name = snapshot.getFileName().toString();
+            RestoreResult result = new RestoreResult(name, restoreMillis, millisSince(start));
+            log.info("Restored {} in {} ms, caches prewarmed in {} ms", name, result.restoreMillis(), result.prewarmMillis());
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops everything kept in memory about the database and loads it again. Also used when this instance may
+    // have missed changes made by another instance sharing the database.
+    public void reloadCaches() {
+        lock.lock();
+        try {
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+            changeTracker.reset();
+            nameDictionary.load();
+            movieFilterIndex.rebuild();
+            // The similar movies index is rebuilt in the background and keeps serving the old neighbours meanwhile
+            similarMoviesIndex.scheduleRebuild();
+            // Load the reference data into the second-level cache before the first movie write needs it
+            genreRepository.findAll();
+            actorRepository.findAll();
+            // Events restored with the snapshot or written by other instances are delivered to waiting long polls
+            // and SSE subscribers
+            catalogueEventService.signalNewEvents();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private interface SqliteWork {
+        int run(SQLiteConnection connection) throws SQLException;
+    }
+
+    private void withSqliteConnection(SqliteWork work) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isWrapperFor(SQLiteConnection.class)) {
+                throw new BackendNotSupportedException("Online backups and snapshot replication need the SQLite backend");
+            }
+            int resultCode = work.run(connection.unwrap(SQLiteConnection.class));
+            if (resultCode != 0) {
+                throw new SQLException("SQLite backup/restore failed with result code " + resultCode);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Backup or restore failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void deleteOldSnapshots() throws IOException {
+        List<Snapshot> snapshots = listSnapshots();
+        for (Snapshot old : snapshots.subList(Math.min(retain, snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(directory.resolve(old.name()));
+        }
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
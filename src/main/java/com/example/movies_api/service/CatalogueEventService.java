@@ -0,0 +1,194 @@
+package com.example.movies_api.service;
+
+import com.example.movies_api.cache.ChangeTracker;
+import com.example.movies_api.entities.CatalogueEvent;
+import com.example.movies_api.entities.EntityType;
+import com.example.movies_api.invalidation.InvalidationBus;
+import com.example.movies_api.invalidation.MovieLists;
+import com.example.movies_api.repository.CatalogueEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Writes catalogue mutations to the outbox table and delivers them to long-poll and Server-Sent Events consumers
+@Service
+public class CatalogueEventService {
+    @Autowired
+    private CatalogueEventRepository catalogueEventRepository;
+    @Autowired
+    private ChangeTracker changeTracker;
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogueEventService.class);
+
+    // Maximum number of events returned by one poll or sent to a subscriber in one batch
+    public static final int MAX_BATCH_SIZE = 500;
+
+    // Number of commits that published events, used to wake up long polls
+    private final AtomicLong commits = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    // Single thread pushing new events to SSE subscribers, so each subscriber receives them in order
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalogue-event-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static class Subscription {
+        private final SseEmitter emitter;
+        private long offset;
+
+        private Subscription(SseEmitter emitter, long offset) {
+            this.emitter = emitter;
+            this.offset = offset;
+        }
+    }
+
+    // Runs a write and appends its event in one transaction and returns the written entity.
+    // Used for saves that allocate new IDs: Hibernate emulates the *_sequence generators with tables that it
+    // updates on a separate connection, which SQLite blocks while this transaction holds a read lock. Running
+    // the save before anything else in the transaction lets the ID be allocated before any lock is taken.
+    @Transactional
+    public <T> T saveAndPublish(EntityType entityType, CatalogueEvent.Operation operation, Collection<String> changedFields,
+                                Supplier<T> save, Function<T, Long> idOf) {
+        return saveAndPublish(entityType, operation, changedFields, MovieLists.NONE, save, idOf);
+    }
+
+    @Transactional
+    public <T> T saveAndPublish(EntityType entityType, CatalogueEvent.Operation operation, Collection<String> changedFields,
+                                MovieLists lists, Supplier<T> save, Function<T, Long> idOf) {
+        T entity = save.get();
+        publish(entityType, idOf.apply(entity), operation, changedFields, lists);
+        return entity;
+    }
+
+    // Appends an event to the outbox. Must be called inside the transaction of the mutation it describes,
+    // so the event is committed or rolled back together with it.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(EntityType entityType, Long entityId, CatalogueEvent.Operation operation, Collection<String> changedFields) {
+        publish(entityType, entityId, operation, changedFields, MovieLists.NONE);
+    }
+
+    // As above, for a movie write that also changed the movie lists of genres and actors
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(EntityType entityType, Long entityId, CatalogueEvent.Operation operation, Collection<String> changedFields,
+                        MovieLists lists) {
+        catalogueEventRepository.save(CatalogueEvent.builder()
+                .entityType(entityType)
+                .entityId(entityId)
+                .operation(operation)
+                .changedFields(String.join(",", changedFields))
+                .createdAt(Instant.now().toString())
+                .build());
+        changeTracker.recordChange(entityType, entityId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                signalNewEvents();
+                // Other instances sharing the database drop what they cached of the entity
+                invalidationBus.publish(entityType, entityId, lists);
+            }
+        });
+    }
+
+    // Retrieves up to limit events recorded after the given offset
+    public List<CatalogueEvent> getEventsAfter(long offset, int limit) {
+        return catalogueEventRepository.findByEventIdGreaterThanOrderByEventIdAsc(offset,
+                PageRequest.of(0, Math.min(Math.max(limit, 1), MAX_BATCH_SIZE)));
+    }
+
+    // Long poll: waits up to timeoutMillis for events after the offset and returns as soon as there are any
+    public List<CatalogueEvent> awaitEventsAfter(long offset, int limit, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long seenCommits = commits.get();
+        List<CatalogueEvent> events = getEventsAfter(offset, limit);
+        long remaining = deadline - System.currentTimeMillis();
+        while (events.isEmpty() && remaining > 0) {
+            synchronized (commits) {
+                // Only sleep if nothing was committed since the last query
+                if (commits.get() == seenCommits) {
+                    commits.wait(remaining);
+                }
+            }
+            seenCommits = commits.get();
+            events = getEventsAfter(offset, limit);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return events;
+    }
+
+    // Opens a Server-Sent Events stream that first replays the events after the offset and then follows new ones
+    public SseEmitter subscribe(long offset) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscription subscription = new Subscription(emitter, offset);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(error -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        dispatcher.execute(() -> deliver(subscription));
+        return emitter;
+    }
+
+    // Wakes up long polls and pushes new events to subscribers
+    public void signalNewEvents() {
+        synchronized (commits) {
+            commits.incrementAndGet();
+            commits.notifyAll();
+        }
+        if (!subscriptions.isEmpty()) {
+            dispatcher.execute(() -> subscriptions.forEach(this::deliver));
+        }
+    }
+
+    // Sends every event the subscriber has not seen yet, in batches
+    private void deliver(Subscription subscription) {
+        try {
+            List<CatalogueEvent> events;
+            do {
+                events = getEventsAfter(subscription.offset, MAX_BATCH_SIZE);
+                for (CatalogueEvent event : events) {
+                    subscription.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getEventId()))
+                            .name("catalogue-event")
+                            .data(event, MediaType.APPLICATION_JSON));
+                    subscription.offset = event.getEventId();
+                }
+            } while (events.size() == MAX_BATCH_SIZE);
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; drop the subscription
+            subscriptions.remove(subscription);
+            subscription.emitter.completeWithError(e);
+        } catch (DataAccessException e) {
+            // Most likely SQLITE_BUSY while a writer commits; the subscriber catches up on the next commit
+            log.warn("Could not read catalogue events for subscriber at offset {}: {}", subscription.offset, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+    }
+}
@@ -1,18 +1,29 @@
 package com.example.movies_api.service;
 
+import com.example.movies_api.cache.SingleFlight;
+import com.example.movies_api.dto.BatchResult;
+import com.example.movies_api.entities.CatalogueEvent;
+import com.example.movies_api.entities.EntityType;
 import com.example.movies_api.entities.Genre;
 import com.example.movies_api.entities.Movie;
 import com.example.movies_api.exceptions.ResourceNotFoundException;
+import com.example.movies_api.index.MovieFilterIndex;
+import com.example.movies_api.index.SimilarMoviesIndex;
+import com.example.movies_api.index.NameDictionary;
+import com.example.movies_api.index.NegativeLookupFilter;
+import com.example.movies_api.popularity.PopularityTracker;
 import com.example.movies_api.repository.GenreRepository;
 import com.example.movies_api.repository.MovieRepository;
+import com.example.movies_api.sharding.ShardedMovieService;
 import org.apache.coyote.BadRequestException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -22,47 +33,101 @@ public class GenreService {
     GenreRepository genreRepository;
     @Autowired
     MovieRepository movieRepository;
+    @Autowired
+    MovieFilterIndex movieFilterIndex;
+    @Autowired
+    SimilarMoviesIndex similarMoviesIndex;
+    @Autowired
+    CatalogueEventService catalogueEventService;
+    @Autowired
+    SingleFlight singleFlight;
+    @Autowired
+    NameDictionary nameDictionary;
+    @Autowired
+    NegativeLookupFilter negativeLookupFilter;
+    @Autowired
+    PopularityTracker popularityTracker;
+    // Present when movies.sharding.enabled is set; sharded movies reference the same genres and actors
+    @Autowired
+    ObjectProvider<ShardedMovieService> shardedMovieService;
+    // Maximum number of entities one multi-get request may ask for
+    @Value("${movies.batch.max-ids:100}")
+    int maxBatchIds;
+
+    // Fields reported in the catalogue event of a newly created genre
+    static final List<String> GENRE_FIELDS = List.of("genreName");
 
     // Saves a new genre after checking if it already exists
     public Genre save(Genre genre) throws BadRequestException {
-        Optional<Genre> genreExits = genreRepository.findByGenreNameIgnoreCase(genre.getGenreName());
-        if (genreExits.isPresent()) {
-            throw new BadRequestException("Genre " + genre.getGenreName() + " already exits");
-        }
-        return genreRepository.save(genre);
+        return nameDictionary.createIfAbsent(EntityType.GENRE, genre.getGenreName(), genreRepository::findById,
+                        () -> catalogueEventService.saveAndPublish(EntityType.GENRE, CatalogueEvent.Operation.CREATE, GENRE_FIELDS,
+                                () -> genreRepository.save(genre), Genre::getGenreId),
+                        Genre::getGenreId)
+                .orElseThrow(() -> new BadRequestException("Genre " + genre.getGenreName() + " already exits"));
     }
 
     // Retrieves all genres sorted by name
     public List<Genre> getAllGenres() {
-        List<Genre> genreList = genreRepository.findAll();
-        return genreList.stream()
-                .sorted((g1, g2) -> g1.getGenreName().compareTo(g2.getGenreName())) // Sort genres by name
-                .collect(Collectors.toList());
+        return singleFlight.execute("getAllGenres", "", () -> {
+            List<Genre> genreList = genreRepository.findAll();
+            return genreList.stream()
+                    .sorted((g1, g2) -> g1.getGenreName().compareTo(g2.getGenreName())) // Sort genres by name
+                    .collect(Collectors.toList());
+        });
+    }
+
+    // Loads the genres with the given IDs in one query, in the requested order.
+    // IDs the negative lookup filter rules out are reported missing without being queried.
+    public BatchResult<Genre> findGenresByIds(List<Long> genreIds) throws BadRequestException {
+        List<Long> ids = BatchResult.distinctIds(genreIds, maxBatchIds);
+        List<Long> candidates = ids.stream().filter(id -> negativeLookupFilter.mayExist(EntityType.GENRE, id)).toList();
+        List<Genre> genres = candidates.isEmpty() ? List.of() : genreRepository.findAllById(candidates);
+        return BatchResult.of(ids, genres, Genre::getGenreId);
     }
 
     // Finds a genre by its ID, throwing an exception if not found
     public Genre findGenreById(Long id) {
-        boolean idExists = genreRepository.existsById(id);
-        if (!idExists) {
+        if (!negativeLookupFilter.mayExist(EntityType.GENRE, id)) {
             throw new ResourceNotFoundException("Genre with id " + id + " does not exists");
         }
-        return genreRepository.findById(id).orElseThrow();
+        Genre genre = singleFlight.execute("findGenreById", id, () -> {
+            boolean idExists = genreRepository.existsById(id);
+            if (!idExists) {
+                throw new ResourceNotFoundException("Genre with id " + id + " does not exists");
+            }
+            return genreRepository.findById(id).orElseThrow();
+        });
+        popularityTracker.recordHit(EntityType.GENRE, id);
+        return genre;
+    }
+
+    // Finds the most read genres, by decayed read count, most read first
+    public List<Genre> findTrendingGenres(int limit) throws BadRequestException {
+        if (limit <= 0 || limit > maxBatchIds) {
+            throw new BadRequestException("Limit must be between 1 and " + maxBatchIds);
+        }
+        List<Long> trendingIds = popularityTracker.trending(EntityType.GENRE, limit).stream().map(PopularityTracker.Trending::id).toList();
+        return BatchResult.of(trendingIds, genreRepository.findAllById(trendingIds), Genre::getGenreId).found();
     }
 
     // Retrieves movies associated with a specific genre by name
     public Set<Movie> getMoviesByGenre(String genreName) {
-        return genreRepository.findMoviesByGenreName(genreName);
+        return singleFlight.execute("getMoviesByGenre", genreName,
+                () -> MovieService.initializeAssociations(genreRepository.findMoviesByGenreName(genreName)));
     }
 
     // Updates the name of an existing genre if it is different from the current name
+    @Transactional
     public void updateGenre(Long genreId, String genreName) {
         Genre genre = genreRepository.findById(genreId).orElseThrow(() -> new ResourceNotFoundException(
                 "Genre with id " + genreId + " does not exists"
         ));
         // Check if the new name is valid and different from the current name
         if (genreName != null && genreName.length() > 0 && !Objects.equals(genre.getGenreName(), genreName)) {
+            nameDictionary.rename(EntityType.GENRE, genreId, genre.getGenreName(), genreName);
             genre.setGenreName(genreName); // Update genre name
             genreRepository.save(genre); // Save the updated genre
+            catalogueEventService.publish(EntityType.GENRE, genreId, CatalogueEvent.Operation.UPDATE, GENRE_FIELDS);
         }
     }
 
@@ -74,7 +139,11 @@ public class GenreService {
             throw new ResourceNotFoundException("Genre with id " + genreId + " does not exists");
         }
         // Count how many movies are associated with the genre
-        int associatedMoviesCount = movieRepository.countMoviesByGenreId(genreId);
+        long associatedMoviesCount = movieRepository.countMoviesByGenreId(genreId);
+        ShardedMovieService shards = shardedMovieService.getIfAvailable();
+        if (shards != null) {
+            associatedMoviesCount += shards.countMoviesByGenreId(genreId);
+        }
         // Prevent deletion if there are associated movies unless forced
         if (associatedMoviesCount > 0 && !force) {
             throw new BadRequestException("Cannot delete genre " + genreRepository.findById(genreId).get().getGenreName() +
@@ -84,8 +153,16 @@ public class GenreService {
             Set<Movie> movies = movieRepository.findMoviesByGenreId(genreId);
             for (Movie movie : movies) {
                 movie.getGenreSet().removeIf(genre -> genre.getGenreId().equals(genreId));
+                catalogueEventService.publish(EntityType.MOVIE, movie.getMovieId(), CatalogueEvent.Operation.UPDATE, List.of("genreSet"));
             }
+            nameDictionary.remove(EntityType.GENRE, genreId, genreRepository.findById(genreId).orElseThrow().getGenreName());
             genreRepository.deleteById(genreId);
+            movieFilterIndex.removeGenre(genreId);
+            similarMoviesIndex.removeGenre(genreId);
+            if (shards != null) {
+                shards.removeGenre(genreId);
+            }
+            catalogueEventService.publish(EntityType.GENRE, genreId, CatalogueEvent.Operation.DELETE, List.of());
         }
     }
 }
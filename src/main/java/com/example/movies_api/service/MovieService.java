@@ -1,18 +1,34 @@
 package com.example.movies_api.service;
 
+import com.example.movies_api.cache.SingleFlight;
+import com.example.movies_api.dto.BatchResult;
+import com.example.movies_api.dto.MovieFieldSet;
 import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.CatalogueEvent;
+import com.example.movies_api.entities.EntityType;
 import com.example.movies_api.entities.Genre;
 import com.example.movies_api.entities.Movie;
 import com.example.movies_api.exceptions.ResourceNotFoundException;
+import com.example.movies_api.index.MovieFilterIndex;
+import com.example.movies_api.index.NameDictionary;
+import com.example.movies_api.index.NegativeLookupFilter;
+import com.example.movies_api.index.SimilarMoviesIndex;
+import com.example.movies_api.invalidation.MovieLists;
+import com.example.movies_api.popularity.PopularityTracker;
 import com.example.movies_api.repository.ActorRepository;
 import com.example.movies_api.repository.GenreRepository;
 import com.example.movies_api.repository.MovieRepository;
 import jakarta.validation.Valid;
 import org.apache.coyote.BadRequestException;
+import org.hibernate.Hibernate;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
 import java.util.*;
@@ -26,12 +42,35 @@ public class MovieService {
     private GenreRepository genreRepository;
     @Autowired
     private ActorRepository actorRepository;
+    @Autowired
+    private MovieFilterIndex movieFilterIndex;
+    @Autowired
+    private SimilarMoviesIndex similarMoviesIndex;
+    @Autowired
+    private CatalogueEventService catalogueEventService;
+    @Autowired
+    private SingleFlight singleFlight;
+    @Autowired
+    private NameDictionary nameDictionary;
+    @Autowired
+    private NegativeLookupFilter negativeLookupFilter;
+    @Autowired
+    private PopularityTracker popularityTracker;
+
+    // Fields reported in the catalogue event of a newly created movie
+    static final List<String> MOVIE_FIELDS = List.of("movieTitle", "releaseYear", "duration", "genreSet", "actorSet");
+    // Maximum number of IDs bound into a single IN (...) clause
+    private static final int ID_BATCH_SIZE = 500;
+    // Maximum number of entities one multi-get request may ask for
+    @Value("${movies.batch.max-ids:100}")
+    private int maxBatchIds;
 
     // Adds a new movie to the repository after validating it does not already exist
     @Validated
     public Movie addMovie(@Valid Movie movie) throws BadRequestException {
         // Check if the movie already exists by title
-        if (movieRepository.findByMovieTitle(movie.getMovieTitle()).isPresent()) {
+        if (negativeLookupFilter.mayExistByName(EntityType.MOVIE, movie.getMovieTitle())
+                && movieRepository.findByMovieTitle(movie.getMovieTitle()).isPresent()) {
             throw new BadRequestException("Movie already exists: " + movie.getMovieTitle());
         }
 
@@ -39,11 +78,15 @@ public class MovieService {
         // Process genres and actors to ensure they are persisted and linked correctly
         movie.setGenreSet(processGenres(movie.getGenreSet()));
         movie.setActorSet(processActors(movie.getActorSet()));
-        return movieRepository.save(movie);
+        Movie savedMovie = catalogueEventService.saveAndPublish(EntityType.MOVIE, CatalogueEvent.Operation.CREATE, MOVIE_FIELDS,
+                MovieLists.of(movie), () -> movieRepository.save(movie), Movie::getMovieId);
+        movieFilterIndex.put(savedMovie);
+        similarMoviesIndex.put(savedMovie);
+        return savedMovie;
     }
 
-    // Process genres to ensure they are persisted and linked correctly
-    private Set<Genre> processGenres(Set<Genre> genres) {
+    // Process genres to ensure they are persisted and linked correctly (also used by the sharded movie store)
+    public Set<Genre> processGenres(Set<Genre> genres) {
         return genres.stream()
                 .map(genre -> {
                     // Check by ID first
@@ -52,14 +95,16 @@ public class MovieService {
                                 .orElseThrow(() -> new ResourceNotFoundException("Genre with ID " + genre.getGenreId() + " does not exist"));
                     }
                     // Then check by name
-                    return genreRepository.findByGenreName(genre.getGenreName())
-                            .orElseGet(() -> genreRepository.save(genre));
+                    return nameDictionary.resolveOrCreate(EntityType.GENRE, genre.getGenreName(), genreRepository::findById,
+                            () -> catalogueEventService.saveAndPublish(EntityType.GENRE, CatalogueEvent.Operation.CREATE,
+                                    GenreService.GENRE_FIELDS, () -> genreRepository.save(genre), Genre::getGenreId),
+                            Genre::getGenreId);
                 })
                 .collect(Collectors.toSet());
     }
 
-    // Process actors to ensure they are persisted and linked correctly
-    private Set<Actor> processActors(Set<Actor> actors) {
+    // Process actors to ensure they are persisted and linked correctly (also used by the sharded movie store)
+    public Set<Actor> processActors(Set<Actor> actors) {
         return actors.stream()
                 .map(actor -> {
                     // Check by ID first
@@ -68,8 +113,10 @@ public class MovieService {
                                 .orElseThrow(() -> new ResourceNotFoundException("Actor with ID " + actor.getActorId() + " does not exist"));
                     }
                     // Then check by name
-                    return actorRepository.findByActorName(actor.getActorName())
-                            .orElseGet(() -> actorRepository.save(actor));
+                    return nameDictionary.resolveOrCreate(EntityType.ACTOR, actor.getActorName(), actorRepository::findById,
+                            () -> catalogueEventService.saveAndPublish(EntityType.ACTOR, CatalogueEvent.Operation.CREATE,
+                                    ActorService.ACTOR_FIELDS, () -> actorRepository.save(actor), Actor::getActorId),
+                            Actor::getActorId);
                 })
                 .collect(Collectors.toSet());
     }
@@ -77,39 +124,94 @@ public class MovieService {
 
     // Retrieves all movies sorted by title
     public List<Movie> getAllMovies() {
-        return movieRepository.findAll().stream()
+        return singleFlight.execute("getAllMovies", "", () -> initializeAssociations(movieRepository.findAll().stream()
                 .sorted(Comparator.comparing(m -> m.getMovieTitle().toLowerCase()))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList())));
+    }
+
+    // Retrieves all movies sorted by title, with only the requested columns and associations
+    public List<Map<String, Object>> getAllMovies(MovieFieldSet fieldSet) {
+        return singleFlight.execute("getAllMovies", fieldSet.key(), () -> movieRepository.findAllProjected(fieldSet));
     }
 
     // Finds a movie by its ID, throwing an exception if not found
     public Movie findMovieById(Long movieId) {
-        return movieRepository.findById(movieId)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie with id " + movieId + " does not exist"));
+        if (!negativeLookupFilter.mayExist(EntityType.MOVIE, movieId)) {
+            throw new ResourceNotFoundException("Movie with id " + movieId + " does not exist");
+        }
+        Movie movie = singleFlight.execute("findMovieById", movieId, () -> movieRepository.findById(movieId)
+                .map(found -> initializeAssociations(List.of(found)).get(0))
+                .orElseThrow(() -> new ResourceNotFoundException("Movie with id " + movieId + " does not exist")));
+        popularityTracker.recordHit(EntityType.MOVIE, movieId);
+        return movie;
     }
 
 
+    // Loads the movies with the given IDs with their genres and actors in one query, in the requested order.
+    // IDs the negative lookup filter rules out are reported missing without being queried.
+    public BatchResult<Movie> findMoviesByIds(List<Long> movieIds) throws BadRequestException {
+        List<Long> ids = BatchResult.distinctIds(movieIds, maxBatchIds);
+        List<Long> candidates = ids.stream().filter(id -> negativeLookupFilter.mayExist(EntityType.MOVIE, id)).toList();
+        List<Movie> movies = candidates.isEmpty() ? List.of() : movieRepository.findAllWithGenresAndActorsByMovieIdIn(candidates);
+        return BatchResult.of(ids, movies, Movie::getMovieId);
+    }
+
+    // Finds the movies sharing the most cast and genres with the given movie, most similar first,
+    // from the precomputed similar movies index
+    public List<Movie> findSimilarMovies(Long movieId, int limit) throws BadRequestException {
+        if (limit <= 0 || limit > maxBatchIds) {
+            throw new BadRequestException("Limit must be between 1 and " + maxBatchIds);
+        }
+        if (!negativeLookupFilter.mayExist(EntityType.MOVIE, movieId) || !movieRepository.existsById(movieId)) {
+            throw new ResourceNotFoundException("Movie with id " + movieId + " does not exist");
+        }
+        List<Long> similarIds = similarMoviesIndex.similarTo(movieId, limit).stream().map(SimilarMoviesIndex.Neighbour::movieId).toList();
+        if (similarIds.isEmpty()) {
+            return List.of();
+        }
+        return BatchResult.of(similarIds, movieRepository.findAllWithGenresAndActorsByMovieIdIn(similarIds), Movie::getMovieId).found();
+    }
+
+    // Finds the most read movies, by decayed read count, most read first
+    public List<Movie> findTrendingMovies(int limit) throws BadRequestException {
+        if (limit <= 0 || limit > maxBatchIds) {
+            throw new BadRequestException("Limit must be between 1 and " + maxBatchIds);
+        }
+        List<Long> trendingIds = popularityTracker.trending(EntityType.MOVIE, limit).stream().map(PopularityTracker.Trending::id).toList();
+        if (trendingIds.isEmpty()) {
+            return List.of();
+        }
+        return BatchResult.of(trendingIds, movieRepository.findAllWithGenresAndActorsByMovieIdIn(trendingIds), Movie::getMovieId).found();
+    }
+
     // Finds movies by genre name, throwing an exception if none exist
     public List<Movie> findMoviesByGenre(String genreName) {
-        Genre genre = genreRepository.findByGenreName(genreName).orElseThrow(() -> new ResourceNotFoundException(
-                "Genre with name '" + genreName + "' does not exists"
-        ));
-        Set<Movie> movieSet = genre.getMovieSet();
-        if (movieSet.isEmpty()) {
-            throw new ResourceNotFoundException("No movies related to genre with genre '" + genre.getGenreName() + "'");
+        if (!negativeLookupFilter.mayExistByName(EntityType.GENRE, genreName)) {
+            throw new ResourceNotFoundException("Genre with name '" + genreName + "' does not exists");
         }
-        return movieRepository.findByGenreSet_genreNameIgnoreCase(genreName);
+        return singleFlight.execute("findMoviesByGenre", genreName, () -> {
+            Genre genre = genreRepository.findByGenreName(genreName).orElseThrow(() -> new ResourceNotFoundException(
+                    "Genre with name '" + genreName + "' does not exists"
+            ));
+            Set<Movie> movieSet = genre.getMovieSet();
+            if (movieSet.isEmpty()) {
+                throw new ResourceNotFoundException("No movies related to genre with genre '" + genre.getGenreName() + "'");
+            }
+            return initializeAssociations(movieRepository.findByGenreSet_genreNameIgnoreCase(genreName));
+        });
     }
 
 
     // Finds movies by their release year, throwing an exception if none exist
     public List<Movie> findMoviesByReleaseYear(Long releaseYear) {
-        boolean yearExits = movieRepository.existsByReleaseYear(releaseYear);
-        if (!yearExits) {
-            throw new ResourceNotFoundException(
-                    "No movie with " + releaseYear + " year");
-        }
-        return movieRepository.findByReleaseYear(releaseYear);
+        return singleFlight.execute("findMoviesByReleaseYear", releaseYear, () -> {
+            boolean yearExits = movieRepository.existsByReleaseYear(releaseYear);
+            if (!yearExits) {
+                throw new ResourceNotFoundException(
+                        "No movie with " + releaseYear + " year");
+            }
+            return initializeAssociations(movieRepository.findByReleaseYear(releaseYear));
+        });
     }
 
     // Retrieves actors associated with a specific movie, throwing an exception if none exist
@@ -133,40 +235,50 @@ public class MovieService {
         Movie movie = movieRepository.findById(movieId).orElseThrow(() ->
                 new ResourceNotFoundException("Movie with id " + movieId + " does not exist"));
         // Check for duplicate movie title (excluding the current movie)
-        List<Movie> movies = movieRepository.findByMovieTitleAndMovieIdNot(movieTitle, movieId);
-        if (!movies.isEmpty()) {
+        if (negativeLookupFilter.mayExistByName(EntityType.MOVIE, movieTitle)
+                && !movieRepository.findByMovieTitleAndMovieIdNot(movieTitle, movieId).isEmpty()) {
             throw new BadRequestException("Movie with name '" + movieTitle + "' already exists");
         }
-        boolean isUpdated = false;// Flag to track if any updates were made
+        Set<String> changedFields = new LinkedHashSet<>();// Names of the fields that were updated
+        MovieLists listsBefore = MovieLists.of(movie);
         // Update movie title if provided and different from existing
         if (movieTitle != null && movieTitle.length() > 0 && !Objects.equals(movie.getMovieTitle(), movieTitle)) {
             movie.setMovieTitle(movieTitle);
-            isUpdated = true;
+            changedFields.add("movieTitle");
         }
         // Update release year
         if (releaseYear != null && String.valueOf(releaseYear).matches("\\d{4}") && !Objects.equals(movie.getReleaseYear(), releaseYear)) {
             movie.setReleaseYear(releaseYear);
-            isUpdated = true;
+            changedFields.add("releaseYear");
         }
         // Update duration
         if (duration != null && duration > 0 && !Objects.equals(movie.getDuration(), duration)) {
             movie.setDuration(duration);
-            isUpdated = true;
+            changedFields.add("duration");
         }
         // Update genres
-        isUpdated = addGenres(genreSet, movie, isUpdated);
-
+        if (addGenres(genreSet, movie, false)) {
+            changedFields.add("genreSet");
+        }
         // Update actors
-        isUpdated = addActors(actorSet, movie, isUpdated);
-
+        if (addActors(actorSet, movie, false)) {
+            changedFields.add("actorSet");
+        }
         // Remove actors
-        isUpdated = removeActors(actorsToRemove, movie, isUpdated);
+        if (removeActors(actorsToRemove, movie, false)) {
+            changedFields.add("actorSet");
+        }
         // Remove genres
-        isUpdated = removeGenres(genresToRemove, movie, isUpdated);
+        if (removeGenres(genresToRemove, movie, false)) {
+            changedFields.add("genreSet");
+        }
 
         // Save the updated movie if any changes were made
-        if (isUpdated) {
-            movieRepository.save(movie);
+        if (!changedFields.isEmpty()) {
+            catalogueEventService.saveAndPublish(EntityType.MOVIE, CatalogueEvent.Operation.UPDATE, changedFields,
+                    MovieLists.changed(listsBefore, MovieLists.of(movie)), () -> movieRepository.save(movie), Movie::getMovieId);
+            movieFilterIndex.put(movie);
+            similarMoviesIndex.put(movie);
         }
         return movie;
 
@@ -221,13 +333,10 @@ public class MovieService {
                 }
                 // If not found by ID, check by name
                 if (existingActor == null && actor.getActorName() != null && !actor.getActorName().isEmpty()) {
-                    Optional<Actor> actorByNameOptional = actorRepository.findByActorName(actor.getActorName());
-                    if (actorByNameOptional.isPresent()) {
-                        existingActor = actorByNameOptional.get();
-                    } else {
-                        existingActor = actorRepository.save(actor);
-                        // throw new ResourceNotFoundException("Actor with name '" + actor.getActorName() + "' does not exist");
-                    }
+                    existingActor = nameDictionary.resolveOrCreate(EntityType.ACTOR, actor.getActorName(), actorRepository::findById,
+                            () -> catalogueEventService.saveAndPublish(EntityType.ACTOR, CatalogueEvent.Operation.CREATE,
+                                    ActorService.ACTOR_FIELDS, () -> actorRepository.save(actor), Actor::getActorId),
+                            Actor::getActorId);
                 }
                 // If actor is found, add to the set
                 if (existingActor != null) {
@@ -257,15 +366,13 @@ public class MovieService {
                 }
                 // If not found by ID, check by name
                 if (existingGenre == null && genre.getGenreName() != null && !genre.getGenreName().isEmpty()) {
-                    Optional<Genre> genreByNameOptional = genreRepository.findByGenreNameIgnoreCase(genre.getGenreName());
-                    if (genreByNameOptional.isPresent()) {
-                        existingGenre = genreByNameOptional.get();
-                    } else {
-                        // Create and save a new genre if not found
-                        existingGenre = new Genre();
-                        existingGenre.setGenreName(genre.getGenreName());
-                        genreRepository.save(existingGenre);
-                    }
+                    // Create and save a new genre if not found
+                    Genre newGenre = new Genre();
+                    newGenre.setGenreName(genre.getGenreName());
+                    existingGenre = nameDictionary.resolveOrCreate(EntityType.GENRE, genre.getGenreName(), genreRepository::findById,
+                            () -> catalogueEventService.saveAndPublish(EntityType.GENRE, CatalogueEvent.Operation.CREATE,
+                                    GenreService.GENRE_FIELDS, () -> genreRepository.save(newGenre), Genre::getGenreId),
+                            Genre::getGenreId);
                 }
                 // Create and save a new genre if not found
                 if (existingGenre != null) {
@@ -280,17 +387,20 @@ public class MovieService {
 
     // Retrieves movies associated with a specific genre ID, throwing an exception if none exist
     public Set<Movie> getMoviesByGenreId(Long genreId) {
-        Genre genre = genreRepository.findById(genreId).orElseThrow(() -> new ResourceNotFoundException(
-                "Genre with ID " + genreId + " does not exists"
-        ));
-        Set<Movie> movieSet = genre.getMovieSet();
-        if (movieSet.isEmpty()) {
-            throw new ResourceNotFoundException("No movies related to genre with genre '" + genre.getGenreName() + "'");
-        }
-        return movieRepository.findMoviesByGenreId(genreId);
+        return singleFlight.execute("getMoviesByGenreId", genreId, () -> {
+            Genre genre = genreRepository.findById(genreId).orElseThrow(() -> new ResourceNotFoundException(
+                    "Genre with ID " + genreId + " does not exists"
+            ));
+            Set<Movie> movieSet = genre.getMovieSet();
+            if (movieSet.isEmpty()) {
+                throw new ResourceNotFoundException("No movies related to genre with genre '" + genre.getGenreName() + "'");
+            }
+            return initializeAssociations(movieRepository.findMoviesByGenreId(genreId));
+        });
     }
 
     // Deletes a movie by its ID, checking for associated actors and genres unless forced
+    @Transactional
     public void deleteMovie(Long movieId, boolean force) throws BadRequestException {
         boolean exists = movieRepository.existsById(movieId);
         if (!exists) {
@@ -307,41 +417,124 @@ public class MovieService {
                     associatedGenreCount + " associated genres");
         } else {
             // Remove associations and delete the movie
-            removeActors(movieId);
-            removeGenres(movieId);
+            Set<Long> actorIds = removeActors(movieId);
+            Set<Long> genreIds = removeGenres(movieId);
             movieRepository.deleteById(movieId);
+            movieFilterIndex.removeMovie(movieId);
+            similarMoviesIndex.removeMovie(movieId);
+            catalogueEventService.publish(EntityType.MOVIE, movieId, CatalogueEvent.Operation.DELETE, List.of(),
+                    new MovieLists(genreIds, actorIds));
         }
     }
 
-    // Removes genres associated with a movie from their respective sets
-    private void removeGenres(Long movieId) {
+    // Removes genres associated with a movie from their respective sets, returning their IDs
+    private Set<Long> removeGenres(Long movieId) {
         Set<Genre> genres = genreRepository.findGenresByMovieId(movieId);
+        Set<Long> genreIds = new HashSet<>();
         for (Genre genre : genres) {
             // Remove the movie from the genre's movie set
             genre.getMovieSet().removeIf(movie -> movie.getMovieId().equals(movieId));
+            genreIds.add(genre.getGenreId());
         }
+        return genreIds;
     }
 
-    // Removes actors associated with a movie from their respective sets
-    private void removeActors(Long movieId) {
+    // Removes actors associated with a movie from their respective sets, returning their IDs
+    private Set<Long> removeActors(Long movieId) {
         Set<Actor> actors = actorRepository.findActorsByMovieId(movieId);
+        Set<Long> actorIds = new HashSet<>();
         // Remove the movie from the actor's movie set
         for (Actor actor : actors) {
             actor.getMovieSet().removeIf(movie -> movie.getMovieId().equals(movieId));
+            actorIds.add(actor.getActorId());
         }
+        return actorIds;
     }
 
     // Finds movies by a partial name and throws an exception if none found
     public Set<Movie> findMoviesByPartialName(String someName) {
         System.out.println("Searching for movies with name: " + someName);
-        Set<Movie> movieSet = movieRepository.findByPartialMovieTitle(someName);
-        if (movieSet.isEmpty()) {
-            throw new ResourceNotFoundException("No movies with name: " + someName);
+        return singleFlight.execute("findMoviesByPartialName", someName, () -> {
+            Set<Movie> movieSet = movieRepository.findByPartialMovieTitle(someName);
+            if (movieSet.isEmpty()) {
+                throw new ResourceNotFoundException("No movies with name: " + someName);
+            }
+            return initializeAssociations(new HashSet<>(movieSet));
+        });
+    }
+
+    // Finds movies by a partial name with only the requested columns and associations
+    public List<Map<String, Object>> findMoviesByPartialName(MovieFieldSet fieldSet, String someName) {
+        return singleFlight.execute("findMoviesByPartialName", List.of(someName, fieldSet.key()), () -> {
+            List<Map<String, Object>> movies = movieRepository.findProjectedByPartialMovieTitle(fieldSet, someName);
+            if (movies.isEmpty()) {
+                throw new ResourceNotFoundException("No movies with name: " + someName);
+            }
+            return movies;
+        });
+    }
+
+    // Loads the lazy genre and actor sets of movies returned through SingleFlight. The result may be shared with
+    // other requests, which must not initialize them concurrently through the session of the request that loaded them.
+    static <C extends Collection<Movie>> C initializeAssociations(C movies) {
+        for (Movie movie : movies) {
+            Hibernate.initialize(movie.getGenreSet());
+            Hibernate.initialize(movie.getActorSet());
         }
-        return new HashSet<>(movieSet);
+        return movies;
     }
 
     public Page<Movie> getMovies(Pageable pageable) {
         return movieRepository.findAll(pageable);
     }
+
+    // Retrieves one page of movies with only the requested columns and associations
+    public Page<Map<String, Object>> getMovies(MovieFieldSet fieldSet, Pageable pageable) {
+        return new PageImpl<>(movieRepository.findPageProjected(fieldSet, pageable), pageable, movieRepository.count());
+    }
+
+    // Finds movies matching any of the given genres, released within the year range and featuring any of the
+    // given actors. The in-memory filter index resolves the matching IDs, which are then loaded in batches.
+    public List<Movie> filterMovies(Set<String> genreNames, Integer fromYear, Integer toYear, Set<Long> actorIds) {
+        Set<Long> genreIds = findGenreIds(genreNames);
+        recordFilterHits(genreIds, actorIds);
+        RoaringBitmap movieIds = movieFilterIndex.filter(genreIds, fromYear, toYear, actorIds);
+        List<Long> idList = MovieFilterIndex.toIdList(movieIds);
+        List<Movie> movies = new ArrayList<>(idList.size());
+        for (int from = 0; from < idList.size(); from += ID_BATCH_SIZE) {
+            List<Long> batch = idList.subList(from, Math.min(from + ID_BATCH_SIZE, idList.size()));
+            movies.addAll(movieRepository.findAllWithGenresAndActorsByMovieIdIn(batch));
+        }
+        movies.sort(Comparator.comparing(m -> m.getMovieTitle().toLowerCase()));
+        return movies;
+    }
+
+    // Counts movies matching the same criteria as filterMovies without loading them
+    public int countFilteredMovies(Set<String> genreNames, Integer fromYear, Integer toYear, Set<Long> actorIds) {
+        Set<Long> genreIds = findGenreIds(genreNames);
+        recordFilterHits(genreIds, actorIds);
+        return movieFilterIndex.count(genreIds, fromYear, toYear, actorIds);
+    }
+
+    // Counts the genres and actors a filter asked for as reads of them
+    private void recordFilterHits(Set<Long> genreIds, Set<Long> actorIds) {
+        genreIds.forEach(genreId -> popularityTracker.recordHit(EntityType.GENRE, genreId));
+        if (actorIds != null) {
+            actorIds.forEach(actorId -> popularityTracker.recordHit(EntityType.ACTOR, actorId));
+        }
+    }
+
+    // Resolves genre names to their IDs, throwing an exception for unknown genres
+    private Set<Long> findGenreIds(Set<String> genreNames) {
+        Set<Long> genreIds = new HashSet<>();
+        if (genreNames != null) {
+            for (String genreName : genreNames) {
+                Genre genre = genreRepository.findByGenreNameIgnoreCase(genreName).orElseThrow(() -> new ResourceNotFoundException(
+                        "Genre with name '" + genreName + "' does not exists"
+                ));
+                genreIds.add(genre.getGenreId());
+            }
+        }
+        return genreIds;
+    }
 }
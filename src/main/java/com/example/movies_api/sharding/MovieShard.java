@@ -0,0 +1,234 @@
+package com.example.movies_api.sharding;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.*;
+
+// One partition of the movie catalogue: a SQLite file with the movie, genre_movies and movie_actors rows of the
+// movies routed to it. Writes go through a single connection, so writers of one shard queue in the pool instead of
+// failing with SQLITE_BUSY, and writers of different shards never wait for each other. The file is in WAL mode,
+// so the read connections keep serving queries while the writer commits.
+class MovieShard implements AutoCloseable {
+
+    // A movie as stored in a shard; genres and actors are IDs of the reference data in movies.db
+    record MovieRow(long movieId, String movieTitle, Integer releaseYear, Float duration, long version,
+                    Set<Long> genreIds, Set<Long> actorIds) {
+    }
+
+    // Shard results are sorted by title like the single-file endpoints, then by ID, so they can be merged
+    static final Comparator<MovieRow> TITLE_ORDER = Comparator.comparing((MovieRow row) -> row.movieTitle().toLowerCase())
+            .thenComparingLong(MovieRow::movieId);
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS movie (movie_id INTEGER PRIMARY KEY, movie_title TEXT NOT NULL, "
+                    + "release_year INTEGER, duration REAL, version INTEGER NOT NULL DEFAULT 0)",
+            "CREATE TABLE IF NOT EXISTS genre_movies (movie_id INTEGER NOT NULL, genre_id INTEGER NOT NULL, "
+                    + "PRIMARY KEY (movie_id, genre_id))",
+            "CREATE TABLE IF NOT EXISTS movie_actors (movie_id INTEGER NOT NULL, actor_id INTEGER NOT NULL, "
+                    + "PRIMARY KEY (movie_id, actor_id))",
+            "CREATE INDEX IF NOT EXISTS idx_movie_title ON movie (movie_title COLLATE NOCASE)",
+            "CREATE INDEX IF NOT EXISTS idx_movie_release_year ON movie (release_year)",
+            "CREATE INDEX IF NOT EXISTS idx_genre_movies_genre ON genre_movies (genre_id)",
+            "CREATE INDEX IF NOT EXISTS idx_movie_actors_actor ON movie_actors (actor_id)"
+    };
+
+    private final int index;
+    private final HikariDataSource writeDataSource;
+    private final HikariDataSource readDataSource;
+    private final JdbcTemplate writer;
+    private final JdbcTemplate reader;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+
+    MovieShard(int index, Path file, int readPoolSize) {
+        this.index = index;
+        String url = "jdbc:sqlite:" + file.toAbsolutePath();
+        writeDataSource = dataSource(url, "shard-" + index + "-writer", 1);
+        readDataSource = dataSource(url, "shard-" + index + "-reader", readPoolSize);
+        writer = new JdbcTemplate(writeDataSource);
+        reader = new JdbcTemplate(readDataSource);
+        writeTransaction = new TransactionTemplate(new DataSourceTransactionManager(writeDataSource));
+        readTransaction = new TransactionTemplate(new DataSourceTransactionManager(readDataSource));
+        writer.execute("PRAGMA journal_mode=WAL");
+        for (String statement : SCHEMA) {
+            writer.execute(statement);
+        }
+    }
+
+    private static HikariDataSource dataSource(String url, String poolName, int size) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setPoolName(poolName);
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(1);
+        config.addDataSourceProperty("busy_timeout", "10000");
+        return new HikariDataSource(config);
+    }
+
+    int index() {
+        return index;
+    }
+
+    void insert(MovieRow movie) {
+        insertAll(List.of(movie));
+    }
+
+    // Inserts movies with their associations in one transaction
+    void insertAll(Collection<MovieRow> movies) {
+        writeTransaction.executeWithoutResult(status -> {
+            writer.batchUpdate("INSERT INTO movie (movie_id, movie_title, release_year, duration, version) VALUES (?, ?, ?, ?, ?)",
+                    movies.stream().map(movie -> new Object[]{movie.movieId(), movie.movieTitle(), movie.releaseYear(),
+                            movie.duration(), movie.version()}).toList());
+            insertAssociations(movies);
+        });
+    }
+
+    // Replaces a movie's columns and associations if its version is still the expected one
+    boolean update(MovieRow movie, long expectedVersion) {
+        Boolean updated = writeTransaction.execute(status -> {
+            int rows = writer.update("UPDATE movie SET movie_title = ?, release_year = ?, duration = ?, version = ? "
+                            + "WHERE movie_id = ? AND version = ?", movie.movieTitle(), movie.releaseYear(), movie.duration(),
+                    movie.version(), movie.movieId(), expectedVersion);
+            if (rows == 0) {
+                return false;
+            }
+            deleteAssociations(movie.movieId());
+            insertAssociations(List.of(movie));
+            return true;
+        });
+        return Boolean.TRUE.equals(updated);
+    }
+
+    boolean delete(long movieId) {
+        Boolean deleted = writeTransaction.execute(status -> {
+            deleteAssociations(movieId);
+            return writer.update("DELETE FROM movie WHERE movie_id = ?", movieId) > 0;
+        });
+        return Boolean.TRUE.equals(deleted);
+    }
+
+    // Drops a deleted genre from the movies of this shard and returns how many movies had it. Their versions are
+    // incremented, as for any other change of their genres.
+    int removeGenre(long genreId) {
+        return removeReference("genre_movies", "genre_id", genreId);
+    }
+
+    // Drops a deleted actor from the movies of this shard and returns how many movies had them
+    int removeActor(long actorId) {
+        return removeReference("movie_actors", "actor_id", actorId);
+    }
+
+    private int removeReference(String table, String column, long id) {
+        Integer removed = writeTransaction.execute(status -> {
+            writer.update("UPDATE movie SET version = version + 1 WHERE movie_id IN (SELECT movie_id FROM " + table
+                    + " WHERE " + column + " = ?)", id);
+            return writer.update("DELETE FROM " + table + " WHERE " + column + " = ?", id);
+        });
+        return removed == null ? 0 : removed;
+    }
+
+    private void insertAssociations(Collection<MovieRow> movies) {
+        List<Object[]> genres = new ArrayList<>();
+        List<Object[]> actors = new ArrayList<>();
+        for (MovieRow movie : movies) {
+            movie.genreIds().forEach(genreId -> genres.add(new Object[]{movie.movieId(), genreId}));
+            movie.actorIds().forEach(actorId -> actors.add(new Object[]{movie.movieId(), actorId}));
+        }
+        writer.batchUpdate("INSERT INTO genre_movies (movie_id, genre_id) VALUES (?, ?)", genres);
+        writer.batchUpdate("INSERT INTO movie_actors (movie_id, actor_id) VALUES (?, ?)", actors);
+    }
+
+    private void deleteAssociations(long movieId) {
+        writer.update("DELETE FROM genre_movies WHERE movie_id = ?", movieId);
+        writer.update("DELETE FROM movie_actors WHERE movie_id = ?", movieId);
+    }
+
+    Optional<MovieRow> find(long movieId) {
+        return select("m.movie_id = ?", movieId).stream().findFirst();
+    }
+
+    List<MovieRow> findAll() {
+        return select("1 = 1");
+    }
+
+    // Case-insensitive substring match on the title, like the single-file search
+    List<MovieRow> findByPartialTitle(String someName) {
+        String pattern = "%" + someName.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return select("lower(m.movie_title) LIKE ? ESCAPE '\\'", pattern);
+    }
+
+    List<MovieRow> findByGenreId(long genreId) {
+        return select("m.movie_id IN (SELECT movie_id FROM genre_movies WHERE genre_id = ?)", genreId);
+    }
+
+    List<MovieRow> findByReleaseYear(int releaseYear) {
+        return select("m.release_year = ?", releaseYear);
+    }
+
+    boolean existsByTitle(String movieTitle, long excludedMovieId) {
+        Integer count = reader.queryForObject("SELECT count(*) FROM movie WHERE movie_title = ? COLLATE NOCASE AND movie_id <> ?",
+                Integer.class, movieTitle, excludedMovieId);
+        return count != null && count > 0;
+    }
+
+    long countByGenreId(long genreId) {
+        Long count = reader.queryForObject("SELECT count(*) FROM genre_movies WHERE genre_id = ?", Long.class, genreId);
+        return count == null ? 0 : count;
+    }
+
+    long countByActorId(long actorId) {
+        Long count = reader.queryForObject("SELECT count(*) FROM movie_actors WHERE actor_id = ?", Long.class, actorId);
+        return count == null ? 0 : count;
+    }
+
+    long maxMovieId() {
+        Long max = reader.queryForObject("SELECT max(movie_id) FROM movie", Long.class);
+        return max == null ? 0 : max;
+    }
+
+    long count() {
+        Long count = reader.queryForObject("SELECT count(*) FROM movie", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    // Loads the movies matching a condition on the movie table (alias m) with their genre and actor IDs,
+    // in one read transaction so the three queries see the same snapshot, sorted in TITLE_ORDER
+    private List<MovieRow> select(String condition, Object... args) {
+        return readTransaction.execute(status -> {
+            Map<Long, Set<Long>> genres = pairs("SELECT gm.movie_id, gm.genre_id FROM genre_movies gm "
+                    + "JOIN movie m ON m.movie_id = gm.movie_id WHERE " + condition, args);
+            Map<Long, Set<Long>> actors = pairs("SELECT ma.movie_id, ma.actor_id FROM movie_actors ma "
+                    + "JOIN movie m ON m.movie_id = ma.movie_id WHERE " + condition, args);
+            List<MovieRow> movies = reader.query("SELECT m.movie_id, m.movie_title, m.release_year, m.duration, m.version "
+                    + "FROM movie m WHERE " + condition, (resultSet, rowNum) -> {
+                long movieId = resultSet.getLong(1);
+                Number releaseYear = (Number) resultSet.getObject(3);
+                Number duration = (Number) resultSet.getObject(4);
+                return new MovieRow(movieId, resultSet.getString(2), releaseYear == null ? null : releaseYear.intValue(),
+                        duration == null ? null : duration.floatValue(), resultSet.getLong(5),
+                        genres.getOrDefault(movieId, Set.of()), actors.getOrDefault(movieId, Set.of()));
+            }, args);
+            movies.sort(TITLE_ORDER);
+            return movies;
+        });
+    }
+
+    private Map<Long, Set<Long>> pairs(String sql, Object... args) {
+        Map<Long, Set<Long>> pairs = new HashMap<>();
+        reader.query(sql, resultSet -> {
+            pairs.computeIfAbsent(resultSet.getLong(1), movieId -> new HashSet<>()).add(resultSet.getLong(2));
+        }, args);
+        return pairs;
+    }
+
+    @Override
+    public void close() {
+        readDataSource.close();
+        writeDataSource.close();
+    }
+}
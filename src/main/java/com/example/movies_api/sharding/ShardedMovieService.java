@@ -0,0 +1,427 @@
+package com.example.movies_api.sharding;
+
+import com.example.movies_api.dto.MovieDTO;
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.exceptions.ResourceNotFoundException;
+import com.example.movies_api.repository.GenreRepository;
+import com.example.movies_api.repository.MovieRepository;
+import com.example.movies_api.service.MovieService;
+import com.example.movies_api.transaction.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.coyote.BadRequestException;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Movie catalogue partitioned across several SQLite files (movies.sharding.*), served under /api/sharded/movie.
+// Movies and their genre_movies/movie_actors rows live in the shard picked by a hash of the movie ID, so writes to
+// different shards commit in parallel. Genres and actors stay in movies.db as reference data shared by all shards
+// and are attached to the results from the second-level cache. Single-ID operations go to one shard; lists,
+// searches and genre/year queries run on every shard in parallel and the sorted shard results are merged.
+// The shards are the only writable copy of the movies: SingleFileMovieWriteFilter rejects writes to /api/movie.
+@Service
+@ConditionalOnProperty(prefix = "movies.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardedMovieService {
+    @Autowired
+    private MovieService movieService;
+    @Autowired
+    private MovieRepository movieRepository;
+    @Autowired
+    private GenreRepository genreRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedMovieService.class);
+    // Titles are unique across all shards, which no single database can enforce: the check and the insert run
+    // under a lock striped by title
+    private static final int TITLE_LOCK_STRIPES = 64;
+
+    private final ShardingProperties properties;
+    private final List<MovieShard> shards = new ArrayList<>();
+    private final ExecutorService queryExecutor;
+    private final AtomicLong lastMovieId = new AtomicLong();
+    private final Object[] titleLocks = new Object[TITLE_LOCK_STRIPES];
+    // Adds and updates resolve genres and actors in movies.db and write their IDs to a shard under the read lock;
+    // genre and actor deletes hold the write lock from counting the sharded movies until they are removed from them
+    private final ReentrantReadWriteLock referenceLock = new ReentrantReadWriteLock();
+
+    public ShardedMovieService(ShardingProperties properties) throws IOException {
+        this.properties = properties;
+        Files.createDirectories(properties.directory());
+        for (int i = 0; i < properties.shards(); i++) {
+            shards.add(new MovieShard(i, properties.directory().resolve("shard-" + i + ".db"), properties.readPoolSize()));
+        }
+        for (int i = 0; i < TITLE_LOCK_STRIPES; i++) {
+            titleLocks[i] = new Object();
+        }
+        AtomicInteger threads = new AtomicInteger();
+        queryExecutor = Executors.newFixedThreadPool(properties.shards() * properties.readPoolSize(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Shard of a movie: Fibonacci hashing of the ID, so consecutive IDs spread over all shards
+    static int shardOf(long movieId, int shardCount) {
+        return Math.floorMod((int) ((movieId * 0x9E3779B97F4A7C15L) >>> 32), shardCount);
+    }
+
+    // Copies the single-file catalogue into empty shards, then continues the IDs after the highest one
+    @PostConstruct
+    public void start() {
+        long existing = scatter(shard -> List.of(shard.count())).stream().mapToLong(Long::longValue).sum();
+        if (existing == 0 && properties.importOnStartup()) {
+            importMovies();
+        }
+        lastMovieId.set(scatter(shard -> List.of(shard.maxMovieId())).stream().mapToLong(Long::longValue).max().orElse(0));
+        log.info("Sharded movie store enabled: movie writes go to /api/sharded/movie, /api/movie serves the movies of "
+                + "movies.db read-only");
+    }
+
+    private void importMovies() {
+        long start = System.currentTimeMillis();
+        Map<Long, Set<Long>> genres = group(movieRepository.findAllMovieGenrePairs());
+        Map<Long, Set<Long>> actors = group(movieRepository.findAllMovieActorPairs());
+        Map<Integer, List<MovieShard.MovieRow>> rows = movieRepository.findAll().stream()
+                .map(movie -> new MovieShard.MovieRow(movie.getMovieId(), movie.getMovieTitle(), movie.getReleaseYear(),
+                        movie.getDuration(), movie.getVersion() == null ? 0 : movie.getVersion(),
+                        genres.getOrDefault(movie.getMovieId(), Set.of()), actors.getOrDefault(movie.getMovieId(), Set.of())))
+                .collect(Collectors.groupingBy(row -> shardOf(row.movieId(), shards.size())));
+        scatter(shard -> {
+            shard.insertAll(rows.getOrDefault(shard.index(), List.of()));
+            return List.of();
+        });
+        log.info("Imported {} movies into {} shards in {} ms", rows.values().stream().mapToInt(List::size).sum(),
+                shards.size(), System.currentTimeMillis() - start);
+    }
+
+    private static Map<Long, Set<Long>> group(List<Object[]> pairs) {
+        Map<Long, Set<Long>> grouped = new HashMap<>();
+        for (Object[] pair : pairs) {
+            grouped.computeIfAbsent((Long) pair[0], movieId -> new HashSet<>()).add((Long) pair[1]);
+        }
+        return grouped;
+    }
+
+    // Adds a movie to the shard of its new ID after checking no shard has its title
+    public Movie addMovie(Movie movie) throws BadRequestException {
+        referenceLock.readLock().lock();
+        try {
+            return insert(movie);
+        } finally {
+            referenceLock.readLock().unlock();
+        }
+    }
+
+    private Movie insert(Movie movie) throws BadRequestException {
+        synchronized (titleLock(movie.getMovieTitle())) {
+            if (existsByTitle(movie.getMovieTitle(), 0)) {
+                throw new BadRequestException("Movie already exists: " + movie.getMovieTitle());
+            }
+            Set<Genre> genres = movieService.processGenres(movie.getGenreSet());
+            Set<Actor> actors = movieService.processActors(movie.getActorSet());
+            long movieId = lastMovieId.incrementAndGet();
+            MovieShard.MovieRow row = new MovieShard.MovieRow(movieId, movie.getMovieTitle(), movie.getReleaseYear(),
+                    movie.getDuration(), 0, ids(genres, Genre::getGenreId), ids(actors, Actor::getActorId));
+            shardFor(movieId).insert(row);
+            return toMovie(row, index(genres, Genre::getGenreId), index(actors, Actor::getActorId));
+        }
+    }
+
+    // Finds a movie by its ID in its shard, throwing an exception if not found
+    public Movie findMovieById(Long movieId) {
+        return toMovies(List.of(findRow(movieId))).get(0);
+    }
+
+    // Retrieves all movies sorted by title
+    public List<Movie> getAllMovies() {
+        return toMovies(gather(MovieShard::findAll));
+    }
+
+    // Finds movies whose title contains the given text, ignoring case, sorted by title
+    public List<Movie> findMoviesByPartialName(String someName) {
+        return toMovies(gather(shard -> shard.findByPartialTitle(someName)));
+    }
+
+    // Finds movies of a genre sorted by title, throwing an exception if the genre does not exist or has no movies
+    public List<Movie> findMoviesByGenre(String genreName) {
+        Genre genre = genreRepository.findByGenreNameIgnoreCase(genreName).orElseThrow(() -> new ResourceNotFoundException(
+                "Genre with name '" + genreName + "' does not exists"));
+        List<MovieShard.MovieRow> rows = gather(shard -> shard.findByGenreId(genre.getGenreId()));
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("No movies related to genre with genre '" + genre.getGenreName() + "'");
+        }
+        return toMovies(rows);
+    }
+
+    // Finds movies released in a year sorted by title, throwing an exception if there are none
+    public List<Movie> findMoviesByReleaseYear(Integer releaseYear) {
+        List<MovieShard.MovieRow> rows = gather(shard -> shard.findByReleaseYear(releaseYear));
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("No movie with " + releaseYear + " year");
+        }
+        return toMovies(rows);
+    }
+
+    // Updates a movie in its shard with the same rules as the single-file update
+    public Movie updateMovie(Long movieId, MovieDTO changes) throws BadRequestException {
+        referenceLock.readLock().lock();
+        try {
+            return update(movieId, changes);
+        } finally {
+            referenceLock.readLock().unlock();
+        }
+    }
+
+    private Movie update(Long movieId, MovieDTO changes) throws BadRequestException {
+        MovieShard.MovieRow current = findRow(movieId);
+        String movieTitle = current.movieTitle();
+        Integer releaseYear = current.releaseYear();
+        Float duration = current.duration();
+        if (changes.getMovieTitle() != null && !changes.getMovieTitle().isEmpty()) {
+            movieTitle = changes.getMovieTitle();
+        }
+        if (changes.getReleaseYear() != null && String.valueOf(changes.getReleaseYear()).matches("\\d{4}")) {
+            releaseYear = changes.getReleaseYear();
+        }
+        if (changes.getDuration() != null && changes.getDuration() > 0) {
+            duration = changes.getDuration();
+        }
+        Set<Long> genreIds = new HashSet<>(current.genreIds());
+        Set<Long> actorIds = new HashSet<>(current.actorIds());
+        if (changes.getGenreSet() != null) {
+            genreIds.addAll(ids(movieService.processGenres(changes.getGenreSet()), Genre::getGenreId));
+        }
+        if (changes.getActorSet() != null) {
+            actorIds.addAll(ids(movieService.processActors(changes.getActorSet()), Actor::getActorId));
+        }
+        Map<Long, Genre> genres = load(Genre.class, genreIds, Genre::getGenreId);
+        Map<Long, Actor> actors = load(Actor.class, actorIds, Actor::getActorId);
+        if (changes.getGenresToRemove() != null) {
+            changes.getGenresToRemove().forEach(removed -> genres.values().removeIf(genre ->
+                    genre.getGenreId().equals(removed.getGenreId()) || genre.getGenreName().equalsIgnoreCase(removed.getGenreName())));
+        }
+        if (changes.getActorsToRemove() != null) {
+            changes.getActorsToRemove().forEach(removed -> actors.values().removeIf(actor ->
+                    actor.getActorId().equals(removed.getActorId()) || actor.getActorName().equalsIgnoreCase(removed.getActorName())));
+        }
+        boolean changed = !movieTitle.equals(current.movieTitle()) || !Objects.equals(releaseYear, current.releaseYear())
+                || !Objects.equals(duration, current.duration()) || !genres.keySet().equals(current.genreIds())
+                || !actors.keySet().equals(current.actorIds());
+        if (!changed) {
+            return toMovie(current, genres, actors);
+        }
+        MovieShard.MovieRow updated = new MovieShard.MovieRow(movieId, movieTitle, releaseYear, duration, current.version() + 1,
+                Set.copyOf(genres.keySet()), Set.copyOf(actors.keySet()));
+        synchronized (titleLock(movieTitle)) {
+            if (!movieTitle.equals(current.movieTitle()) && existsByTitle(movieTitle, movieId)) {
+                throw new BadRequestException("Movie with name '" + movieTitle + "' already exists");
+            }
+            if (!shardFor(movieId).update(updated, current.version())) {
+                throw new ObjectOptimisticLockingFailureException(Movie.class, movieId);
+            }
+        }
+        return toMovie(updated, genres, actors);
+    }
+
+    // Deletes a movie from its shard; movies with genres or actors are only deleted with force
+    public void deleteMovie(Long movieId, boolean force) throws BadRequestException {
+        MovieShard.MovieRow movie = findRow(movieId);
+        if ((!movie.actorIds().isEmpty() || !movie.genreIds().isEmpty()) && !force) {
+            throw new BadRequestException("Cannot delete movie " + movie.movieTitle() + " becasue it has "
+                    + movie.actorIds().size() + " associated actors and " + movie.genreIds().size() + " associated genres");
+        }
+        if (!shardFor(movieId).delete(movieId)) {
+            throw new ResourceNotFoundException("Movie with id '" + movieId + "' does not exist");
+        }
+    }
+
+    // Number of sharded movies that reference the genre, counted by genre deletes next to the single-file movies.
+    // Sharded adds and updates wait until the delete's transaction completes, so none can attach the genre between
+    // the count and removeGenre.
+    public long countMoviesByGenreId(Long genreId) {
+        lockReferencesUntilCompletion();
+        return scatter(shard -> List.of(shard.countByGenreId(genreId))).stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long countMoviesByActorId(Long actorId) {
+        lockReferencesUntilCompletion();
+        return scatter(shard -> List.of(shard.countByActorId(actorId))).stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Drops a force-deleted genre from the sharded movies. The shards are not part of the movies.db transaction,
+    // so this happens after it commits: a rolled back delete leaves the shards untouched.
+    public void removeGenre(Long genreId) {
+        TransactionHooks.afterCommit(() -> scatter(shard -> List.of(shard.removeGenre(genreId))));
+    }
+
+    public void removeActor(Long actorId) {
+        TransactionHooks.afterCommit(() -> scatter(shard -> List.of(shard.removeActor(actorId))));
+    }
+
+    private void lockReferencesUntilCompletion() {
+        referenceLock.writeLock().lock();
+        TransactionHooks.afterCompletion(referenceLock.writeLock()::unlock);
+    }
+
+    private MovieShard.MovieRow findRow(Long movieId) {
+        return shardFor(movieId).find(movieId)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie with id " + movieId + " does not exist"));
+    }
+
+    private boolean existsByTitle(String movieTitle, long excludedMovieId) {
+        return scatter(shard -> List.of(shard.existsByTitle(movieTitle, excludedMovieId))).contains(true);
+    }
+
+    private MovieShard shardFor(long movieId) {
+        return shards.get(shardOf(movieId, shards.size()));
+    }
+
+    private Object titleLock(String movieTitle) {
+        return titleLocks[Math.floorMod(movieTitle.toLowerCase().hashCode(), TITLE_LOCK_STRIPES)];
+    }
+
+    // Runs a query on every shard in parallel and merges the results, each sorted in title order
+    private List<MovieShard.MovieRow> gather(Function<MovieShard, List<MovieShard.MovieRow>> query) {
+        List<CompletableFuture<List<MovieShard.MovieRow>>> results = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), queryExecutor))
+                .toList();
+        return merge(results.stream().map(ShardedMovieService::join).toList());
+    }
+
+    // Runs a query on every shard in parallel and concatenates the results
+    private <T> List<T> scatter(Function<MovieShard, List<T>> query) {
+        List<CompletableFuture<List<T>>> results = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), queryExecutor))
+                .toList();
+        return results.stream().flatMap(result -> join(result).stream()).toList();
+    }
+
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // k-way merge of lists sorted in MovieShard.TITLE_ORDER
+    static List<MovieShard.MovieRow> merge(List<List<MovieShard.MovieRow>> sortedLists) {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Comparator.comparing(Cursor::current, MovieShard.TITLE_ORDER));
+        int size = 0;
+        for (List<MovieShard.MovieRow> sorted : sortedLists) {
+            size += sorted.size();
+            if (!sorted.isEmpty()) {
+                cursors.add(new Cursor(sorted));
+            }
+        }
+        List<MovieShard.MovieRow> merged = new ArrayList<>(size);
+        while (!cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            merged.add(cursor.current());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static class Cursor {
+        private final List<MovieShard.MovieRow> rows;
+        private int position;
+
+        private Cursor(List<MovieShard.MovieRow> rows) {
+            this.rows = rows;
+        }
+
+        private MovieShard.MovieRow current() {
+            return rows.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < rows.size();
+        }
+    }
+
+    // Builds movie entities for the rows, with genres and actors from the reference data in movies.db
+    private List<Movie> toMovies(List<MovieShard.MovieRow> rows) {
+        Set<Long> genreIds = new HashSet<>();
+        Set<Long> actorIds = new HashSet<>();
+        rows.forEach(row -> {
+            genreIds.addAll(row.genreIds());
+            actorIds.addAll(row.actorIds());
+        });
+        Map<Long, Genre> genres = load(Genre.class, genreIds, Genre::getGenreId);
+        Map<Long, Actor> actors = load(Actor.class, actorIds, Actor::getActorId);
+        return rows.stream().map(row -> toMovie(row, genres, actors)).toList();
+    }
+
+    private static Movie toMovie(MovieShard.MovieRow row, Map<Long, Genre> genres, Map<Long, Actor> actors) {
+        return Movie.builder()
+                .movieId(row.movieId())
+                .movieTitle(row.movieTitle())
+                .releaseYear(row.releaseYear())
+                .duration(row.duration())
+                .version(row.version())
+                .genreSet(row.genreIds().stream().map(genres::get).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .actorSet(row.actorIds().stream().map(actors::get).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .build();
+    }
+
+    // Loads reference entities by ID, from the second-level cache where possible
+    private <T> Map<Long, T> load(Class<T> type, Set<Long> ids, Function<T, Long> idOf) {
+        Map<Long, T> loaded = new HashMap<>();
+        if (!ids.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> entityManager.unwrap(Session.class).byMultipleIds(type)
+                    .multiLoad(new ArrayList<>(ids)).stream()
+                    .filter(Objects::nonNull)
+                    .forEach(entity -> loaded.put(idOf.apply(entity), entity)));
+        }
+        return loaded;
+    }
+
+    private static <T> Set<Long> ids(Set<T> entities, Function<T, Long> idOf) {
+        return entities.stream().map(idOf).collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Long, T> index(Set<T> entities, Function<T, Long> idOf) {
+        return entities.stream().collect(Collectors.toMap(idOf, Function.identity()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queryExecutor.shutdownNow();
+        shards.forEach(MovieShard::close);
+    }
+}
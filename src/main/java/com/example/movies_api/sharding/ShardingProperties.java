@@ -0,0 +1,20 @@
+package com.example.movies_api.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+// Settings of the sharded movie store (movies.sharding.* in application.properties)
+@ConfigurationProperties(prefix = "movies.sharding")
+public record ShardingProperties(
+        @DefaultValue("false") boolean enabled,
+        // Number of SQLite files movies are partitioned across; changing it requires a fresh directory
+        @DefaultValue("4") int shards,
+        // Directory holding shard-0.db ... shard-(N-1).db
+        @DefaultValue("shards") Path directory,
+        // Read connections per shard; each shard has a single write connection
+        @DefaultValue("4") int readPoolSize,
+        // Copy the movies of movies.db into the shards when they are all empty at startup
+        @DefaultValue("true") boolean importOnStartup) {
+}
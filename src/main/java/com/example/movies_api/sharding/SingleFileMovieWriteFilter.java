@@ -0,0 +1,56 @@
+package com.example.movies_api.sharding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// With the sharded store enabled the shards are the only writable copy of the movies: writes to /api/movie are
+// answered with 405 Method Not Allowed and point to /api/sharded/movie, while its reads keep serving movies.db
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(prefix = "movies.sharding", name = "enabled", havingValue = "true")
+public class SingleFileMovieWriteFilter implements Filter {
+
+    private static final Set<String> READ_METHODS = Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name());
+    private static final String MOVIE_PATH = "/api/movie";
+
+    private final ObjectMapper objectMapper;
+
+    public SingleFileMovieWriteFilter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        String uri = request.getRequestURI();
+        if (READ_METHODS.contains(request.getMethod()) || !(uri.equals(MOVIE_PATH) || uri.startsWith(MOVIE_PATH + "/"))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", "Movies are stored in shards: send movie writes to /api/sharded/movie");
+        body.put("timestamp", Instant.now());
+        response.setStatus(HttpStatus.METHOD_NOT_ALLOWED.value());
+        response.setHeader(HttpHeaders.ALLOW, "GET, HEAD, OPTIONS");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
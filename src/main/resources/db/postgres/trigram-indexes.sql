@@ -0,0 +1,4 @@
+-- Trigram indexes serving the ILIKE '%name%' searches on movie titles and actor names
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS movie_title_trgm_idx ON movie USING gin (movie_title gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS actor_name_trgm_idx ON actor USING gin (actor_name gin_trgm_ops);
@@ -0,0 +1,56 @@
+package com.example.movies_api;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.exceptions.BackendNotSupportedException;
+import com.example.movies_api.repository.ActorRepository;
+import com.example.movies_api.service.ActorService;
+import com.example.movies_api.service.BackupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Runs the postgres profile against its in-process H2 stand-in
+@SpringBootTest
+@ActiveProfiles({"postgres", "h2"})
+class PostgresProfileTests {
+
+	@Autowired
+	private ActorService actorService;
+	@Autowired
+	private ActorRepository actorRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private BackupService backupService;
+
+	@Test
+	@Transactional
+	void allocatesPooledIdsAndSearchesCaseInsensitively() throws Exception {
+		assertEquals(50, jdbcTemplate.queryForObject(
+				"SELECT increment FROM information_schema.sequences WHERE sequence_name = 'actor_sequence'", Long.class));
+
+		Actor first = actorService.save(actor("Tilda Swinton"));
+		Actor second = actorService.save(actor("Tim Roth"));
+		assertEquals(first.getActorId() + 1, second.getActorId());
+		assertEquals(2, actorRepository.findByPartialActorName("TI").size());
+		assertEquals(1, actorRepository.findByPartialActorName("swin").size());
+	}
+
+	@Test
+	void rejectsSqliteBackups() {
+		assertThrows(BackendNotSupportedException.class, () -> backupService.backup());
+	}
+
+	private static Actor actor(String name) {
+		return new Actor(null, name, "1960-11-05", new HashSet<>(), null);
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.example.movies_api.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTests {
+
+	@Test
+	void growsWhileTheLimitIsInUse() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 4, 100);
+		for (int round = 0; round < 5; round++) {
+			int admitted = acquireAll(limit, 1.0);
+			assertEquals((int) limit.getLimit(), admitted);
+			for (int i = 0; i < admitted; i++) {
+				limit.release(false);
+			}
+		}
+		// Each fast request adds 1/limit while at least half of the limit is in flight
+		assertTrue(limit.getLimit() > 12 && limit.getLimit() < 15, "limit " + limit.getLimit());
+		assertEquals(0, limit.getInFlight());
+	}
+
+	@Test
+	void doesNotGrowWhileIdle() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 4, 100);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limit.tryAcquire(1.0));
+			limit.release(false);
+		}
+		assertEquals(10, limit.getLimit());
+	}
+
+	@Test
+	void backsOffMultiplicativelyDownToTheMinimum() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 100);
+		assertTrue(limit.tryAcquire(1.0));
+		limit.release(true);
+		assertEquals(18, limit.getLimit(), 1e-9);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limit.tryAcquire(1.0));
+			limit.release(true);
+		}
+		assertEquals(4, limit.getLimit());
+
+		AdaptiveConcurrencyLimit capped = new AdaptiveConcurrencyLimit(500, 4, 100);
+		assertEquals(100, capped.getLimit());
+	}
+
+	@Test
+	void enforcesTheShareOfEachClass() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 100);
+		// A class with a quarter share gets 5 of the 20 permits
+		assertEquals(5, acquireAll(limit, 0.25));
+		// Classes with a larger share still get in, up to their own share of all requests in flight
+		assertEquals(15, acquireAll(limit, 1.0));
+		assertFalse(limit.tryAcquire(0.25));
+
+		// A share too small for one permit still admits one request at a time
+		AdaptiveConcurrencyLimit small = new AdaptiveConcurrencyLimit(4, 4, 100);
+		assertEquals(1, acquireAll(small, 0.1));
+	}
+
+	private static int acquireAll(AdaptiveConcurrencyLimit limit, double share) {
+		int admitted = 0;
+		while (limit.tryAcquire(share)) {
+			admitted++;
+		}
+		return admitted;
+	}
+}
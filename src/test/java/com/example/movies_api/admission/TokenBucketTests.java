@@ -0,0 +1,54 @@
+package com.example.movies_api.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void admitsTheBurstAndThenRefillsAtTheRate() {
+		TokenBucket bucket = new TokenBucket(2, 3, 0);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, bucket.tryAcquire(0));
+		}
+		// Empty: the next token arrives after half a second at 2 per second
+		assertEquals(SECOND / 2, bucket.tryAcquire(0));
+		assertEquals(SECOND / 4, bucket.tryAcquire(SECOND / 4));
+
+		assertEquals(0, bucket.tryAcquire(SECOND / 2));
+		// A long pause refills no more than the burst
+		long later = 100 * SECOND;
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, bucket.tryAcquire(later));
+		}
+		assertTrue(bucket.tryAcquire(later) > 0);
+	}
+
+	@Test
+	void retryAfterRoundsUpToWholeSeconds() {
+		assertEquals(1, TokenBucket.retryAfterSeconds(1));
+		assertEquals(1, TokenBucket.retryAfterSeconds(SECOND));
+		assertEquals(2, TokenBucket.retryAfterSeconds(SECOND + 1));
+		assertEquals(10, TokenBucket.retryAfterSeconds(10 * SECOND));
+	}
+
+	@Test
+	void isIdleOnceFullOrUnusedForLong() {
+		TokenBucket bucket = new TokenBucket(1, 5, 0);
+		assertTrue(bucket.isIdle(0, 10 * SECOND));
+		bucket.tryAcquire(0);
+		assertFalse(bucket.isIdle(0, 10 * SECOND));
+		// Refilled after a second
+		assertTrue(bucket.isIdle(SECOND, 10 * SECOND));
+
+		TokenBucket slow = new TokenBucket(0.01, 5, 0);
+		slow.tryAcquire(0);
+		assertFalse(slow.isIdle(5 * SECOND, 10 * SECOND));
+		assertTrue(slow.isIdle(10 * SECOND, 10 * SECOND));
+	}
+}
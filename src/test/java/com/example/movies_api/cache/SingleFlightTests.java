@@ -0,0 +1,122 @@
+package com.example.movies_api.cache;
+
+import com.example.movies_api.entities.EntityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTests {
+
+	private static final int CALLERS = 8;
+
+	private final ChangeTracker changeTracker = new ChangeTracker();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final SingleFlight singleFlight = new SingleFlight(changeTracker, meterRegistry);
+	private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentIdenticalCallsRunOnce() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger runs = new AtomicInteger();
+		List<Future<String>> results = callConcurrently(() -> {
+			runs.incrementAndGet();
+			await(release);
+			return "result";
+		});
+		awaitShared(CALLERS - 1);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertEquals("result", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, runs.get());
+		assertEquals((CALLERS - 1) / (double) CALLERS, singleFlight.coalescingRatio(), 1e-9);
+	}
+
+	@Test
+	void exceptionReachesEveryWaiterAndEndsTheFlight() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("database unavailable");
+		List<Future<String>> results = callConcurrently(() -> {
+			await(release);
+			throw failure;
+		});
+		awaitShared(CALLERS - 1);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+			assertSame(failure, thrown.getCause());
+		}
+		// The failed flight is gone, so the next call runs again
+		assertEquals("retried", singleFlight.execute("load", "key", () -> "retried"));
+	}
+
+	@Test
+	void newChangeStampStartsANewFlight() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Future<String> before = executor.submit(() -> singleFlight.execute("load", "key", () -> {
+			await(release);
+			return "before";
+		}));
+		awaitExecuted(1);
+
+		changeTracker.recordChange(EntityType.MOVIE, 1L);
+		// Not joined to the flight still waiting on the old stamp
+		assertEquals("after", singleFlight.execute("load", "key", () -> "after"));
+
+		release.countDown();
+		assertEquals("before", before.get(5, TimeUnit.SECONDS));
+	}
+
+	private List<Future<String>> callConcurrently(Supplier<String> call) {
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(() -> singleFlight.execute("load", "key", call)));
+		}
+		return results;
+	}
+
+	private void awaitShared(int calls) throws InterruptedException {
+		awaitCount("shared", calls);
+	}
+
+	private void awaitExecuted(int calls) throws InterruptedException {
+		awaitCount("executed", calls);
+	}
+
+	private void awaitCount(String result, int calls) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (meterRegistry.counter("movies.single.flight.calls", "operation", "load", "result", result).count() < calls) {
+			assertTrue(System.nanoTime() < deadline, "callers did not arrive");
+			Thread.sleep(5);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
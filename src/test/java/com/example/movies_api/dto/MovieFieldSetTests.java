@@ -0,0 +1,38 @@
+package com.example.movies_api.dto;
+
+import org.apache.coyote.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MovieFieldSetTests {
+
+	@Test
+	void selectsRequestedFieldsInResponseOrder() throws BadRequestException {
+		MovieFieldSet fieldSet = MovieFieldSet.parse("releaseYear, movieTitle,actorSet.actorName", "genreSet");
+		assertEquals(List.of("movieId", "movieTitle", "releaseYear"), fieldSet.movieFields());
+		assertEquals(MovieFieldSet.GENRE_PROPERTIES, fieldSet.genreFields());
+		assertEquals(List.of("actorId", "actorName"), fieldSet.actorFields());
+		assertEquals(fieldSet.key(), MovieFieldSet.parse("movieTitle,releaseYear,actorSet.actorName,genreSet", null).key());
+	}
+
+	@Test
+	void includeAloneKeepsAllMovieColumns() throws BadRequestException {
+		MovieFieldSet fieldSet = MovieFieldSet.parse(null, "actorSet");
+		assertEquals(MovieFieldSet.MOVIE_PROPERTIES, fieldSet.movieFields());
+		assertFalse(fieldSet.includesGenres());
+		assertEquals(MovieFieldSet.ACTOR_PROPERTIES, fieldSet.actorFields());
+	}
+
+	@Test
+	void rejectsUnknownNames() {
+		assertThrows(BadRequestException.class, () -> MovieFieldSet.parse("version", null));
+		assertThrows(BadRequestException.class, () -> MovieFieldSet.parse("actorSet.movieSet", null));
+		assertThrows(BadRequestException.class, () -> MovieFieldSet.parse(null, "movieSet"));
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.example.movies_api.encoding;
+
+import com.example.movies_api.entities.CatalogueEvent;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.service.BackupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProtobufCatalogueConverterTests {
+
+	private final ProtobufCatalogueConverter converter = new ProtobufCatalogueConverter();
+
+	@Test
+	void writesEntitiesSparseRowsAndErrors() {
+		assertTrue(canWrite(ResolvableType.forClass(Movie.class)));
+		assertTrue(canWrite(ResolvableType.forClassWithGenerics(List.class, Movie.class)));
+		assertTrue(canWrite(ResolvableType.forClassWithGenerics(Set.class, Genre.class)));
+		assertTrue(canWrite(ResolvableType.forClassWithGenerics(List.class,
+				ResolvableType.forClassWithGenerics(Map.class, String.class, Object.class))));
+		assertTrue(canWrite(ResolvableType.forClassWithGenerics(Map.class, String.class, String.class)));
+		// Declared as Page<?> or ResponseEntity<?>: judged by the body class
+		assertTrue(converter.canWrite(ResolvableType.forClassWithGenerics(Page.class, ResolvableType.forClass(Object.class)).getType(),
+				Page.class, EncodingConfig.PROTOBUF));
+		assertTrue(converter.canWrite(Object.class, ArrayList.class, EncodingConfig.PROTOBUF));
+	}
+
+	@Test
+	void leavesOtherBodiesToOtherConverters() {
+		assertFalse(canWrite(ResolvableType.forClassWithGenerics(List.class, CatalogueEvent.class)));
+		assertFalse(canWrite(ResolvableType.forClassWithGenerics(List.class, BackupService.Snapshot.class)));
+		assertFalse(canWrite(ResolvableType.forClassWithGenerics(Map.class, String.class, Object.class)));
+		assertFalse(canWrite(ResolvableType.forClass(BackupService.BackupResult.class)));
+		assertFalse(canWrite(ResolvableType.forClass(String.class)));
+		assertFalse(converter.canWrite(Object.class, HashMap.class, EncodingConfig.PROTOBUF));
+		assertFalse(converter.canWrite(Movie.class, Movie.class, MediaType.APPLICATION_JSON));
+	}
+
+	private boolean canWrite(ResolvableType type) {
+		return converter.canWrite(type.getType(), type.toClass(), EncodingConfig.PROTOBUF);
+	}
+}
@@ -0,0 +1,28 @@
+package com.example.movies_api.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+	@Test
+	void findsEveryAddedKeyAndFewOthers() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add("Movie " + i);
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filter.mightContain("Movie " + i));
+		}
+
+		int falsePositives = 0;
+		for (int i = 10_000; i < 110_000; i++) {
+			if (filter.mightContain("Movie " + i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000 lookups");
+	}
+
+}
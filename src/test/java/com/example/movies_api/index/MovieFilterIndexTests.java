@@ -0,0 +1,92 @@
+package com.example.movies_api.index;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovieFilterIndexTests {
+
+	private MovieFilterIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new MovieFilterIndex();
+		index.put(movie(1L, 1999, Set.of(10L), Set.of(100L, 101L)));
+		index.put(movie(2L, 2005, Set.of(10L, 11L), Set.of(101L)));
+		index.put(movie(3L, 2010, Set.of(11L), Set.of(102L)));
+	}
+
+	@Test
+	void intersectsGenreYearAndActor() {
+		assertEquals(List.of(2L), ids(Set.of(10L), 2000, 2010, Set.of(101L)));
+		assertEquals(List.of(1L, 2L, 3L), ids(Set.of(10L, 11L), null, null, null));
+		assertEquals(2, index.count(null, 2005, null, null));
+	}
+
+	@Test
+	void reindexesUpdatedAndDeletedMovies() {
+		index.put(movie(2L, 2011, Set.of(11L), Set.of(102L)));
+		assertEquals(List.of(1L), ids(Set.of(10L), null, null, null));
+		assertEquals(List.of(2L, 3L), ids(null, null, null, Set.of(102L)));
+
+		index.removeMovie(3L);
+		index.removeActor(100L);
+		assertEquals(List.of(2L), ids(Set.of(11L), null, null, null));
+		assertEquals(List.of(), ids(null, null, null, Set.of(100L)));
+	}
+
+	@Test
+	void rebuildKeepsAnsweringAndReplaysChangesCommittedMeanwhile() {
+		MovieRepository movieRepository = mock(MovieRepository.class);
+		ReflectionTestUtils.setField(index, "movieRepository", movieRepository);
+		when(movieRepository.findAllMovieIdsAndReleaseYears()).thenAnswer(invocation -> {
+			// The current index answers until the new one is complete
+			assertEquals(List.of(1L, 2L), ids(Set.of(10L), null, null, null));
+			// Committed after the rebuild read the movies
+			index.put(movie(4L, 2020, Set.of(10L), Set.of()));
+			index.removeMovie(1L);
+			return rows(new Object[]{1L, 1999}, new Object[]{2L, 2005}, new Object[]{3L, 2010});
+		});
+		when(movieRepository.findAllMovieGenrePairs()).thenReturn(rows(
+				new Object[]{1L, 10L}, new Object[]{2L, 10L}, new Object[]{2L, 11L}, new Object[]{3L, 11L}));
+		when(movieRepository.findAllMovieActorPairs()).thenReturn(rows());
+		when(movieRepository.findAllMovieTitles()).thenReturn(List.of("Heat", "Ronin", "Tenet"));
+
+		index.rebuild();
+		assertEquals(List.of(2L, 4L), ids(Set.of(10L), null, null, null));
+		assertFalse(index.mayContainMovie(1L));
+		assertTrue(index.mayContainMovie(4L));
+		assertTrue(index.mayContainTitle("Ronin"));
+	}
+
+	private static List<Object[]> rows(Object[]... rows) {
+		return List.of(rows);
+	}
+
+	private List<Long> ids(Set<Long> genreIds, Integer fromYear, Integer toYear, Set<Long> actorIds) {
+		return MovieFilterIndex.toIdList(index.filter(genreIds, fromYear, toYear, actorIds));
+	}
+
+	private static Movie movie(Long movieId, int releaseYear, Set<Long> genreIds, Set<Long> actorIds) {
+		Set<Genre> genres = new HashSet<>();
+		genreIds.forEach(id -> genres.add(Genre.builder().genreId(id).build()));
+		Set<Actor> actors = new HashSet<>();
+		actorIds.forEach(id -> actors.add(new Actor(id, null, null, new HashSet<>(), null)));
+		return Movie.builder().movieId(movieId).releaseYear(releaseYear).genreSet(genres).actorSet(actors).build();
+	}
+
+}
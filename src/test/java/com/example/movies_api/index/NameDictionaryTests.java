@@ -0,0 +1,112 @@
+package com.example.movies_api.index;
+
+import com.example.movies_api.entities.EntityType;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.repository.ActorRepository;
+import com.example.movies_api.repository.GenreRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NameDictionaryTests {
+
+	private final NameDictionary dictionary = new NameDictionary();
+	// Stands in for the genre table
+	private final Map<Long, Genre> genres = new ConcurrentHashMap<>();
+	private final AtomicLong nextId = new AtomicLong();
+
+	@Test
+	void concurrentCreatorsOfTheSameNameGetOneEntity() throws Exception {
+		int creators = 16;
+		ExecutorService executor = Executors.newFixedThreadPool(creators);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Genre>> results = new ArrayList<>();
+		for (int i = 0; i < creators; i++) {
+			String name = i % 2 == 0 ? "Film Noir" : "FILM NOIR";
+			results.add(executor.submit(() -> {
+				start.await();
+				return resolveOrCreate(name);
+			}));
+		}
+		start.countDown();
+		for (Future<Genre> result : results) {
+			assertEquals(1L, result.get().getGenreId());
+		}
+		executor.shutdown();
+		assertEquals(1, genres.size());
+	}
+
+	@Test
+	void followsRenamesAndDeletes() {
+		Genre drama = resolveOrCreate("Drama");
+		dictionary.rename(EntityType.GENRE, drama.getGenreId(), "Drama", "Melodrama");
+		assertEquals(drama.getGenreId(), resolveOrCreate("melodrama").getGenreId());
+		assertTrue(dictionary.createIfAbsent(EntityType.GENRE, "MELODRAMA", this::find, () -> create("MELODRAMA"),
+				Genre::getGenreId).isEmpty());
+
+		// A deleted genre is recreated under a new ID, even if the dictionary was not told about the delete
+		genres.remove(drama.getGenreId());
+		assertEquals(2L, resolveOrCreate("Melodrama").getGenreId());
+		assertFalse(dictionary.mayContainId(EntityType.GENRE, drama.getGenreId()));
+		assertTrue(dictionary.mayContainId(EntityType.GENRE, 2L));
+
+		dictionary.remove(EntityType.GENRE, 2L, "Melodrama");
+		assertFalse(dictionary.mayContainName(EntityType.GENRE, "melodrama"));
+		assertFalse(dictionary.mayContainId(EntityType.GENRE, 2L));
+	}
+
+	@Test
+	void reloadKeepsKnownNamesAndChangesMadeMeanwhile() {
+		Genre drama = resolveOrCreate("Drama");
+		GenreRepository genreRepository = mock(GenreRepository.class);
+		ActorRepository actorRepository = mock(ActorRepository.class);
+		ReflectionTestUtils.setField(dictionary, "genreRepository", genreRepository);
+		ReflectionTestUtils.setField(dictionary, "actorRepository", actorRepository);
+		List<Object[]> rows = new ArrayList<>();
+		rows.add(new Object[]{drama.getGenreId(), "Drama"});
+		when(genreRepository.findAllGenreIdsAndNames()).thenAnswer(invocation -> {
+			// The current dictionary answers until the new one is complete
+			assertTrue(dictionary.mayContainName(EntityType.GENRE, "drama"));
+			// Created after the reload read the genres
+			resolveOrCreate("Western");
+			return rows;
+		});
+		when(actorRepository.findAllActorIdsAndNames()).thenReturn(List.of());
+
+		dictionary.load();
+		assertTrue(dictionary.mayContainName(EntityType.GENRE, "Drama"));
+		assertTrue(dictionary.mayContainName(EntityType.GENRE, "western"));
+		assertTrue(dictionary.mayContainId(EntityType.GENRE, 2L));
+	}
+
+	private Genre resolveOrCreate(String name) {
+		return dictionary.resolveOrCreate(EntityType.GENRE, name, this::find, () -> create(name), Genre::getGenreId);
+	}
+
+	private Optional<Genre> find(Long genreId) {
+		return Optional.ofNullable(genres.get(genreId));
+	}
+
+	private Genre create(String name) {
+		Genre genre = Genre.builder().genreId(nextId.incrementAndGet()).genreName(name).build();
+		genres.put(genre.getGenreId(), genre);
+		return genre;
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.example.movies_api.index;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SimilarMoviesIndexTests {
+
+	private SimilarMoviesIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new SimilarMoviesIndex(64, 16, 10, 2);
+		index.rebuild(Map.of(
+				1L, SimilarMoviesIndex.features(Set.of(1L, 2L), Set.of(10L, 11L, 12L, 14L, 15L)),
+				2L, SimilarMoviesIndex.features(Set.of(1L, 2L), Set.of(10L, 11L, 12L, 13L, 14L, 15L)),
+				3L, SimilarMoviesIndex.features(Set.of(3L), Set.of(20L)),
+				4L, SimilarMoviesIndex.features(Set.of(), Set.of())));
+	}
+
+	@AfterEach
+	void tearDown() {
+		index.shutdown();
+	}
+
+	@Test
+	void findsMoviesSharingCastAndGenres() {
+		assertEquals(List.of(new SimilarMoviesIndex.Neighbour(2L, 7 / 8.0)), index.similarTo(1L, 10));
+		assertEquals(List.of(), index.similarTo(3L, 10));
+		assertEquals(List.of(), index.similarTo(4L, 10));
+	}
+
+	@Test
+	void updatesNeighboursOfChangedMovies() {
+		index.put(movie(3L, Set.of(1L, 2L), Set.of(10L, 11L, 12L, 14L, 15L)));
+		assertEquals(List.of(3L, 2L), ids(index.similarTo(1L, 10)));
+		assertEquals(List.of(3L), ids(index.similarTo(1L, 1)));
+
+		index.removeMovie(3L);
+		index.removeActor(13L);
+		assertEquals(List.of(new SimilarMoviesIndex.Neighbour(2L, 1.0)), index.similarTo(1L, 10));
+		assertEquals(List.of(1L), ids(index.similarTo(2L, 10)));
+	}
+
+	@Test
+	void computesExactJaccardSimilarity() {
+		assertEquals(0.4, SimilarMoviesIndex.jaccard(new long[]{1, 2, 3}, new long[]{2, 3, 4, 1_000}), 1e-9);
+		assertEquals(0.0, SimilarMoviesIndex.jaccard(new long[0], new long[0]));
+	}
+
+	private static List<Long> ids(List<SimilarMoviesIndex.Neighbour> neighbours) {
+		return neighbours.stream().map(SimilarMoviesIndex.Neighbour::movieId).toList();
+	}
+
+	private static Movie movie(Long movieId, Set<Long> genreIds, Set<Long> actorIds) {
+		Set<Genre> genres = new HashSet<>();
+		genreIds.forEach(id -> genres.add(Genre.builder().genreId(id).build()));
+		Set<Actor> actors = new HashSet<>();
+		actorIds.forEach(id -> actors.add(new Actor(id, null, null, new HashSet<>(), null)));
+		return Movie.builder().movieId(movieId).genreSet(genres).actorSet(actors).build();
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.example.movies_api.invalidation;
+
+import com.example.movies_api.entities.EntityType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidationMessageTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void encodesAndDecodesBatches() {
+		InvalidationMessage message = new InvalidationMessage(UUID.randomUUID(), 42, false, List.of(
+				new InvalidationMessage.Entry(EntityType.MOVIE, 7),
+				new InvalidationMessage.Entry(EntityType.GENRE, 7, true),
+				new InvalidationMessage.Entry(EntityType.GENRE, Long.MAX_VALUE)));
+		byte[] bytes = message.encode();
+		assertEquals(InvalidationMessage.size(3), bytes.length);
+		assertEquals(message, InvalidationMessage.decode(bytes));
+
+		InvalidationMessage heartbeat = InvalidationMessage.decode(InvalidationMessage.heartbeat(message.node(), 42).encode());
+		assertTrue(heartbeat.isHeartbeat());
+		assertEquals(42, heartbeat.sequence());
+	}
+
+	@Test
+	void rejectsTruncatedMessages() {
+		byte[] bytes = new InvalidationMessage(UUID.randomUUID(), 1, true, List.of(
+				new InvalidationMessage.Entry(EntityType.ACTOR, 3))).encode();
+		assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.decode(Arrays.copyOf(bytes, bytes.length - 1)));
+		assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.decode(new byte[0]));
+	}
+
+	@Test
+	void fileTransportDeliversMessagesOfOtherWriters() throws Exception {
+		Path file = directory.resolve("invalidations.log");
+		BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+		BlockingQueue<String> lost = new LinkedBlockingQueue<>();
+		try (FileInvalidationTransport sender = new FileInvalidationTransport(file, Duration.ofMillis(10));
+			 FileInvalidationTransport receiver = new FileInvalidationTransport(file, Duration.ofMillis(10))) {
+			sender.start(new InvalidationTransport.Receiver() {
+				@Override
+				public void received(byte[] message) {
+				}
+
+				@Override
+				public void lost(String reason) {
+				}
+			});
+			sender.send(new byte[]{0});
+			receiver.start(new InvalidationTransport.Receiver() {
+				@Override
+				public void received(byte[] message) {
+					received.add(message);
+				}
+
+				@Override
+				public void lost(String reason) {
+					lost.add(reason);
+				}
+			});
+			sender.send(new byte[]{1, 2, 3});
+			sender.send(new byte[]{4});
+			// Only what was appended after the receiver started
+			assertArrayEquals(new byte[]{1, 2, 3}, received.poll(5, TimeUnit.SECONDS));
+			assertArrayEquals(new byte[]{4}, received.poll(5, TimeUnit.SECONDS));
+
+			Files.write(file, new byte[0]);
+			assertNotNull(lost.poll(5, TimeUnit.SECONDS));
+		}
+	}
+}
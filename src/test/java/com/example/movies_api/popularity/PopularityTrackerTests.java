@@ -0,0 +1,70 @@
+package com.example.movies_api.popularity;
+
+import com.example.movies_api.entities.EntityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PopularityTrackerTests {
+
+	private PopularityTracker tracker;
+
+	@BeforeEach
+	void setUp() {
+		tracker = new PopularityTracker(null, new SimpleMeterRegistry(), Duration.ofMinutes(5), 3, 0.5, 256, 2);
+	}
+
+	private void hit(EntityType type, long id, int times) {
+		for (int i = 0; i < times; i++) {
+			tracker.recordHit(type, id);
+		}
+	}
+
+	private List<Long> trendingIds(EntityType type) {
+		return tracker.trending(type, 10).stream().map(PopularityTracker.Trending::id).toList();
+	}
+
+	@Test
+	void ranksMostReadFirst() {
+		hit(EntityType.MOVIE, 1L, 3);
+		hit(EntityType.MOVIE, 2L, 5);
+		hit(EntityType.ACTOR, 1L, 1);
+		assertEquals(List.of(2L, 1L), trendingIds(EntityType.MOVIE));
+		assertEquals(List.of(1L), trendingIds(EntityType.ACTOR));
+		assertEquals(List.of(), trendingIds(EntityType.GENRE));
+	}
+
+	@Test
+	void keepsHeavyHittersWhenCandidatesAreFull() {
+		hit(EntityType.MOVIE, 1L, 4);
+		hit(EntityType.MOVIE, 2L, 3);
+		tracker.rotate();
+		hit(EntityType.MOVIE, 3L, 1);
+		hit(EntityType.MOVIE, 4L, 6);
+		assertEquals(List.of(4L, 1L), tracker.trending(EntityType.MOVIE, 2).stream().map(PopularityTracker.Trending::id).toList());
+	}
+
+	@Test
+	void olderWindowsDecay() {
+		hit(EntityType.GENRE, 1L, 4);
+		tracker.rotate();
+		hit(EntityType.GENRE, 2L, 3);
+		assertEquals(List.of(new PopularityTracker.Trending(2L, 3), new PopularityTracker.Trending(1L, 2)),
+				tracker.trending(EntityType.GENRE, 10));
+		tracker.rotate();
+		tracker.rotate();
+		assertEquals(List.of(new PopularityTracker.Trending(2L, 0.75)), tracker.trending(EntityType.GENRE, 10));
+	}
+
+	@Test
+	void restoresPersistedScores() {
+		tracker.restore(EntityType.ACTOR, 7L, 10);
+		hit(EntityType.ACTOR, 8L, 2);
+		assertEquals(List.of(7L, 8L), trendingIds(EntityType.ACTOR));
+	}
+}
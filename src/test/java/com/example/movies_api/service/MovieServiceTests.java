@@ -0,0 +1,63 @@
+package com.example.movies_api.service;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs against the in-process H2 database of the postgres profile, so movies.db is left untouched
+@SpringBootTest
+@ActiveProfiles({"postgres", "h2"})
+class MovieServiceTests {
+
+	@Autowired
+	private MovieService movieService;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void rolledBackDeleteKeepsTheMovieFindable() {
+		Long movieId = inTransaction(() -> movieService.addMovie(Movie.builder()
+				.movieTitle("Rollback Story")
+				.releaseYear(2001)
+				.duration(101f)
+				.genreSet(new HashSet<>(Set.of(Genre.builder().genreName("Rollback Drama").build())))
+				.actorSet(new HashSet<>(Set.of(new Actor(null, "Rita Rollback", "1970-01-01", new HashSet<>(), null))))
+				.build())).getMovieId();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			inTransaction(() -> {
+				movieService.deleteMovie(movieId, true);
+				return null;
+			});
+			status.setRollbackOnly();
+		});
+
+		assertEquals("Rollback Story", inTransaction(() -> movieService.findMovieById(movieId)).getMovieTitle());
+		assertEquals(List.of(movieId), inTransaction(() -> movieService.filterMovies(Set.of("Rollback Drama"), null, null, null))
+				.stream().map(Movie::getMovieId).toList());
+	}
+
+	// The service expects the session the web layer keeps open for the whole request
+	private <T> T inTransaction(Callable<T> work) {
+		return transactionTemplate.execute(status -> {
+			try {
+				return work.call();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.example.movies_api.sharding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieShardTests {
+
+	@TempDir
+	Path directory;
+
+	private MovieShard shard;
+
+	@BeforeEach
+	void setUp() {
+		shard = new MovieShard(0, directory.resolve("shard-0.db"), 2);
+		shard.insertAll(List.of(
+				new MovieShard.MovieRow(1, "the Matrix", 1999, 136f, 0, Set.of(1L), Set.of(10L, 11L)),
+				new MovieShard.MovieRow(2, "Heat", 1995, 170f, 0, Set.of(2L), Set.of()),
+				new MovieShard.MovieRow(3, "The 100% Movie", 1999, null, 0, Set.of(1L, 2L), Set.of(10L))));
+	}
+
+	@AfterEach
+	void tearDown() {
+		shard.close();
+	}
+
+	private static List<Long> ids(List<MovieShard.MovieRow> rows) {
+		return rows.stream().map(MovieShard.MovieRow::movieId).toList();
+	}
+
+	@Test
+	void queriesMoviesWithTheirAssociationsInTitleOrder() {
+		assertEquals(List.of(2L, 3L, 1L), ids(shard.findAll()));
+		assertEquals(new MovieShard.MovieRow(1, "the Matrix", 1999, 136f, 0, Set.of(1L), Set.of(10L, 11L)), shard.find(1).orElseThrow());
+		assertEquals(List.of(3L, 1L), ids(shard.findByPartialTitle("THE")));
+		assertEquals(List.of(3L), ids(shard.findByPartialTitle("100%")));
+		assertEquals(List.of(3L, 1L), ids(shard.findByGenreId(1)));
+		assertEquals(List.of(3L, 1L), ids(shard.findByReleaseYear(1999)));
+		assertTrue(shard.existsByTitle("HEAT", 0));
+		assertFalse(shard.existsByTitle("Heat", 2));
+		assertEquals(3, shard.maxMovieId());
+	}
+
+	@Test
+	void updatesOnlyTheExpectedVersion() {
+		MovieShard.MovieRow updated = new MovieShard.MovieRow(2, "Heat", 1995, 171f, 1, Set.of(1L), Set.of(12L));
+		assertTrue(shard.update(updated, 0));
+		assertFalse(shard.update(new MovieShard.MovieRow(2, "Heat", 1995, 172f, 1, Set.of(), Set.of()), 0));
+		assertEquals(updated, shard.find(2).orElseThrow());
+		assertTrue(shard.delete(2));
+		assertFalse(shard.delete(2));
+		assertEquals(2, shard.count());
+	}
+
+	@Test
+	void mergesShardResultsInTitleOrder() {
+		MovieShard.MovieRow a = new MovieShard.MovieRow(5, "Alien", 1979, null, 0, Set.of(), Set.of());
+		MovieShard.MovieRow b = new MovieShard.MovieRow(4, "brazil", 1985, null, 0, Set.of(), Set.of());
+		MovieShard.MovieRow c = new MovieShard.MovieRow(6, "Casablanca", 1942, null, 0, Set.of(), Set.of());
+		MovieShard.MovieRow c2 = new MovieShard.MovieRow(7, "casablanca", 1942, null, 0, Set.of(), Set.of());
+		assertEquals(List.of(a, b, c, c2), ShardedMovieService.merge(List.of(List.of(b, c2), List.of(), List.of(a, c))));
+	}
+
+	@Test
+	void spreadsConsecutiveIdsOverAllShards() {
+		int[] counts = new int[4];
+		for (long movieId = 1; movieId <= 4000; movieId++) {
+			counts[ShardedMovieService.shardOf(movieId, 4)]++;
+		}
+		for (int count : counts) {
+			assertTrue(count > 900 && count < 1100, "uneven shards: " + count);
+		}
+	}
+}
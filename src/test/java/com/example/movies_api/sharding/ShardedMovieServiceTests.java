@@ -0,0 +1,111 @@
+package com.example.movies_api.sharding;
+
+import com.example.movies_api.entities.Actor;
+import com.example.movies_api.entities.Genre;
+import com.example.movies_api.entities.Movie;
+import com.example.movies_api.service.ActorService;
+import com.example.movies_api.service.GenreService;
+import org.apache.coyote.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the sharded store next to the in-process H2 database of the postgres profile, with shards in a temporary directory
+@SpringBootTest
+@ActiveProfiles({"postgres", "h2"})
+class ShardedMovieServiceTests {
+
+	@Autowired
+	private ShardedMovieService shardedMovieService;
+	@Autowired
+	private GenreService genreService;
+	@Autowired
+	private ActorService actorService;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@DynamicPropertySource
+	static void sharding(DynamicPropertyRegistry registry) throws IOException {
+		String directory = Files.createTempDirectory("shards").toString();
+		registry.add("movies.sharding.enabled", () -> "true");
+		registry.add("movies.sharding.directory", () -> directory);
+		registry.add("movies.sharding.shards", () -> "3");
+	}
+
+	@Test
+	void mergesMoviesOfAllShardsInTitleOrder() throws Exception {
+		for (String title : List.of("Merge c", "merge A", "Merge b", "Merge e", "merge D")) {
+			shardedMovieService.addMovie(movie(title, Set.of(), Set.of()));
+		}
+		assertEquals(List.of("merge A", "Merge b", "Merge c", "merge D", "Merge e"), shardedMovieService.findMoviesByPartialName("MERGE")
+				.stream().map(Movie::getMovieTitle).toList());
+		assertThrows(BadRequestException.class, () -> shardedMovieService.addMovie(movie("MERGE C", Set.of(), Set.of())));
+	}
+
+	@Test
+	void genreAndActorDeletesSeeAndCleanShardedMovies() throws Exception {
+		Movie movie = shardedMovieService.addMovie(movie("Sharded Noir", Set.of("Shard Noir"), Set.of("Sid Shard")));
+		Long genreId = movie.getGenreSet().iterator().next().getGenreId();
+		Long actorId = movie.getActorSet().iterator().next().getActorId();
+
+		assertThrows(BadRequestException.class, () -> genreService.deleteGenre(genreId, false));
+		assertThrows(BadRequestException.class, () -> actorService.deleteActor(actorId, false));
+
+		genreService.deleteGenre(genreId, true);
+		actorService.deleteActor(actorId, true);
+		assertEquals(0, shardedMovieService.countMoviesByGenreId(genreId));
+		assertEquals(0, shardedMovieService.countMoviesByActorId(actorId));
+		Movie reloaded = shardedMovieService.findMovieById(movie.getMovieId());
+		assertTrue(reloaded.getGenreSet().isEmpty());
+		assertTrue(reloaded.getActorSet().isEmpty());
+		assertEquals(2L, reloaded.getVersion());
+	}
+
+	@Test
+	void shardedAddsWaitForAGenreDeleteThatCountedThem() throws Exception {
+		Genre genre = shardedMovieService.addMovie(movie("Sharded Western", Set.of("Shard Western"), Set.of()))
+				.getGenreSet().iterator().next();
+		Movie byId = movie("Sharded Western II", Set.of(), Set.of());
+		byId.setGenreSet(Set.of(Genre.builder().genreId(genre.getGenreId()).build()));
+
+		CompletableFuture<Movie> added = transactionTemplate.execute(status -> {
+			assertEquals(1, shardedMovieService.countMoviesByGenreId(genre.getGenreId()));
+			CompletableFuture<Movie> add = CompletableFuture.supplyAsync(() -> {
+				try {
+					return shardedMovieService.addMovie(byId);
+				} catch (BadRequestException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			// Blocked until the transaction that counted the genre's movies completes
+			assertThrows(TimeoutException.class, () -> add.get(200, TimeUnit.MILLISECONDS));
+			return add;
+		});
+		assertEquals(genre.getGenreId(), added.get(5, TimeUnit.SECONDS).getGenreSet().iterator().next().getGenreId());
+		assertEquals(2, shardedMovieService.countMoviesByGenreId(genre.getGenreId()));
+	}
+
+	private static Movie movie(String title, Set<String> genreNames, Set<String> actorNames) {
+		Set<Genre> genres = new HashSet<>();
+		genreNames.forEach(name -> genres.add(Genre.builder().genreName(name).build()));
+		Set<Actor> actors = new HashSet<>();
+		actorNames.forEach(name -> actors.add(new Actor(null, name, "1970-01-01", new HashSet<>(), null)));
+		return Movie.builder().movieTitle(title).releaseYear(1950).duration(90f).genreSet(genres).actorSet(actors).build();
+	}
+
+}